@@ -0,0 +1,605 @@
+package sudoku;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact solver for Sudoku.
+ * Candidates are kept as row / column / block bitmasks, one long per unit
+ * for every supported board size (9x9, 16x16, 25x25, ...). Naked and hidden
+ * singles are placed before each branch, and the search branches on the
+ * empty cell with the fewest candidates (minimum remaining values).
+ * Only fixed cells are taken as clues; other cells are solved from scratch.
+ */
+public class Backtracking implements Solver
+{
+    // đếm lời giải song song khi đề gần như trống: số tầng tách nhánh
+    private static final int SPLIT_DEPTH = 2;
+
+    // bảng ô / đơn vị của cỡ bảng đang giải, đổi khi gặp bảng cỡ khác
+    private Geometry geo;
+    private int size;
+    private int cells;
+    private long all;                  // bit d-1 = chữ số d
+    private int[][] unit;
+    private int[] row;
+    private int[] col;
+    private int[] block;
+
+    // trạng thái tìm kiếm, dùng lại giữa các lần gọi đệ quy
+    private int[] value;
+    private long[] rows;
+    private long[] cols;
+    private long[] boxes;
+    private int[] trail;
+    private int trailSize;
+
+    private Cancellation cancel;
+    private SolverListener listener = SolverListener.NONE;
+    private long nodes;                // đếm nút để kiểm tra hủy thưa thớt
+    private long start;                // thời điểm bắt đầu solve, cho checkpoint
+
+    private final boolean descending;  // thử chữ số lớn trước
+
+    // trạng thái đếm lời giải
+    private long limit;
+    private long found;
+    private long maxNodes;
+    private boolean exhausted;         // hết ngân sách nút trước khi có kết quả
+    private AtomicLong shared;         // tổng chung của các nhánh song song, null nếu tuần tự
+    private AtomicLong budget;         // số nút còn lại chung của các nhánh song song
+
+    public Backtracking()
+    {
+        this(false);
+    }
+
+    /**
+     * @param descending try candidates from the largest digit down. On a
+     *                   puzzle with several solutions this finds a different
+     *                   one than the default order.
+     */
+    public Backtracking(boolean descending)
+    {
+        this.descending = descending;
+    }
+
+    @Override
+    public void setListener(SolverListener listener)
+    {
+        this.listener = listener;
+    }
+
+    @Override
+    public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+    {
+        this.cancel = cancel;
+        this.nodes = 0;
+        this.start = System.nanoTime();
+
+        boolean solved = load(puzzle) && search();
+        listener.finished(nodes);
+
+        if (!solved)
+        {
+            return null;
+        }
+
+        Sudoku result = puzzle.clone();
+
+        for (int i = 0; i < cells; i++)
+        {
+            if (!result.isFixed(row[i], col[i]))
+            {
+                result.set(row[i], col[i], value[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Number of solutions of the fixed cells of the puzzle, counted up to
+     * limit: the search stops as soon as limit solutions are found, so
+     * countSolutions(p, 2) == 1 is a uniqueness check. Boards with clues in
+     * fewer than a quarter of their cells are split across the common
+     * ForkJoinPool when limit > 2; a uniqueness check always runs on the
+     * calling thread.
+     */
+    public long countSolutions(Sudoku puzzle, long limit)
+    {
+        return countSolutions(puzzle, limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as countSolutions(puzzle, limit), but gives up after visiting
+     * maxNodes search nodes (in total, when split across the pool) and
+     * then returns -1.
+     */
+    public long countSolutions(Sudoku puzzle, long limit, long maxNodes)
+    {
+        return countSolutions(puzzle, limit, maxNodes, new Cancellation());
+    }
+
+    /**
+     * Same as countSolutions(puzzle, limit, maxNodes), but also returns -1
+     * once cancel is cancelled (checked every 1024 nodes).
+     */
+    public long countSolutions(Sudoku puzzle, long limit, long maxNodes, Cancellation cancel)
+    {
+        if (limit <= 0 || !load(puzzle))
+        {
+            return 0;
+        }
+
+        this.cancel = cancel;
+
+        this.limit = limit;
+        this.found = 0;
+        this.nodes = 0;
+        this.maxNodes = maxNodes;
+        this.exhausted = false;
+        this.shared = null;
+        this.budget = null;
+
+        if (limit > 2 && clues() * 4 < cells)
+        {
+            AtomicLong total = new AtomicLong();
+            AtomicLong nodesLeft = new AtomicLong(maxNodes);
+            ForkJoinPool.commonPool().invoke(new CountTask(geo, value.clone(), limit, total, nodesLeft, cancel,
+                    SPLIT_DEPTH));
+
+            if (total.get() < limit && (nodesLeft.get() < 0 || cancel.isCancelled()))
+            {
+                return -1;
+            }
+
+            return Math.min(total.get(), limit);
+        }
+
+        count();
+        return exhausted ? -1 : found;
+    }
+
+    private int clues()
+    {
+        int n = 0;
+
+        for (int i = 0; i < cells; i++)
+        {
+            if (value[i] != 0)
+            {
+                n++;
+            }
+        }
+
+        return n;
+    }
+
+    // một nhánh của cây tìm kiếm: tách tiếp theo ô MRV, hoặc đếm tuần tự khi đủ sâu
+    private static final class CountTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Geometry geo;
+        private final int[] givens;
+        private final long limit;
+        private final AtomicLong total;
+        private final AtomicLong budget;
+        private final Cancellation cancel;
+        private final int depth;
+
+        CountTask(Geometry geo, int[] givens, long limit, AtomicLong total, AtomicLong budget, Cancellation cancel,
+                  int depth)
+        {
+            this.geo = geo;
+            this.givens = givens;
+            this.limit = limit;
+            this.total = total;
+            this.budget = budget;
+            this.cancel = cancel;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute()
+        {
+            Backtracking bt = new Backtracking();
+            bt.setup(geo);
+
+            if (total.get() >= limit || budget.get() < 0 || !bt.load(givens))
+            {
+                return;
+            }
+
+            bt.limit = limit;
+            bt.maxNodes = Long.MAX_VALUE;    // ngân sách tính chung qua budget
+            bt.budget = budget;
+            bt.cancel = cancel;
+            bt.shared = total;
+
+            if (depth == 0)
+            {
+                bt.count();
+                return;
+            }
+
+            if (!bt.propagate())
+            {
+                return;
+            }
+
+            int best = bt.mrv();
+
+            if (best < 0)
+            {
+                bt.solution();
+                return;
+            }
+
+            List<CountTask> branches = new ArrayList<>();
+
+            for (long cand = bt.candidates(best); cand != 0; cand &= cand - 1)
+            {
+                int[] next = bt.value.clone();
+                next[best] = Long.numberOfTrailingZeros(cand) + 1;
+                branches.add(new CountTask(geo, next, limit, total, budget, cancel, depth - 1));
+            }
+
+            invokeAll(branches);
+        }
+    }
+
+    // nạp các ô cố định; false nếu đề tự mâu thuẫn
+    private boolean load(Sudoku puzzle)
+    {
+        setup(Geometry.of(puzzle.boxSize()));
+        reset();
+
+        for (int i = 0; i < cells; i++)
+        {
+            if (puzzle.isFixed(row[i], col[i]) && !give(i, puzzle.get(row[i], col[i])))
+            {
+                return false;
+            }
+        }
+
+        trailSize = 0;   // các ô cố định không bao giờ bị gỡ
+        return true;
+    }
+
+    // nạp một lưới giá trị (0 = trống); dùng cho các nhánh song song
+    private boolean load(int[] givens)
+    {
+        reset();
+
+        for (int i = 0; i < cells; i++)
+        {
+            if (givens[i] != 0 && !give(i, givens[i]))
+            {
+                return false;
+            }
+        }
+
+        trailSize = 0;
+        return true;
+    }
+
+    // cấp lại bảng và mảng trạng thái khi cỡ bảng thay đổi
+    private void setup(Geometry g)
+    {
+        if (geo == g)
+        {
+            return;
+        }
+
+        geo = g;
+        size = g.size;
+        cells = g.cells;
+        all = (1L << size) - 1;
+        unit = g.unit;
+        row = g.row;
+        col = g.col;
+        block = g.block;
+
+        value = new int[cells];
+        rows = new long[size];
+        cols = new long[size];
+        boxes = new long[size];
+        trail = new int[cells];
+    }
+
+    private void reset()
+    {
+        Arrays.fill(value, 0);
+        Arrays.fill(rows, 0);
+        Arrays.fill(cols, 0);
+        Arrays.fill(boxes, 0);
+        trailSize = 0;
+    }
+
+    // đặt một ô đề; false nếu trùng với ô đề khác. Giá trị ngoài 1..size bị bỏ qua
+    private boolean give(int i, int v)
+    {
+        if (v < 1 || v > size)
+        {
+            return true;
+        }
+
+        if (((rows[row[i]] | cols[col[i]] | boxes[block[i]]) & (1L << (v - 1))) != 0)
+        {
+            return false;
+        }
+
+        place(i, v);
+        return true;
+    }
+
+    private boolean search()
+    {
+        int mark = trailSize;
+
+        if ((++nodes & 1023) == 0)
+        {
+            if (cancel.isCancelled())
+            {
+                return false;
+            }
+
+            if (listener != SolverListener.NONE)
+            {
+                listener.checkpoint(new Checkpoint("Backtracking", nodes, System.nanoTime() - start, -1, -1,
+                        Double.NaN, Double.NaN, Double.NaN));
+            }
+        }
+
+        if (!propagate())
+        {
+            undo(mark);
+            return false;
+        }
+
+        int best = mrv();
+
+        if (best < 0)
+        {
+            return true; // đã điền hết
+        }
+
+        long cand = candidates(best);
+
+        while (cand != 0)
+        {
+            long bit = descending ? Long.highestOneBit(cand) : cand & -cand;
+            cand ^= bit;
+
+            int inner = trailSize;
+            place(best, Long.numberOfTrailingZeros(bit) + 1);
+
+            if (search())
+            {
+                return true;
+            }
+
+            undo(inner);
+        }
+
+        undo(mark);
+        return false;
+    }
+
+    // true khi đã đếm đủ limit lời giải
+    private boolean count()
+    {
+        int mark = trailSize;
+
+        if ((++nodes & 1023) == 0)
+        {
+            if (cancel.isCancelled())
+            {
+                exhausted = true;
+                return true;
+            }
+
+            // nhánh song song khác đã đủ thì dừng
+            if (shared != null && shared.get() >= limit)
+            {
+                return true;
+            }
+
+            // trừ ngân sách chung theo từng khối 1024 nút
+            if (budget != null && budget.addAndGet(-1024) < 0)
+            {
+                exhausted = true;
+                return true;
+            }
+        }
+
+        if (nodes > maxNodes)
+        {
+            exhausted = true;
+            return true;
+        }
+
+        if (!propagate())
+        {
+            undo(mark);
+            return false;
+        }
+
+        int best = mrv();
+
+        if (best < 0)
+        {
+            undo(mark);
+            return solution();
+        }
+
+        long cand = candidates(best);
+        boolean done = false;
+
+        while (cand != 0 && !done)
+        {
+            long bit = cand & -cand;
+            cand ^= bit;
+
+            int inner = trailSize;
+            place(best, Long.numberOfTrailingZeros(bit) + 1);
+            done = count();
+            undo(inner);
+        }
+
+        undo(mark);
+        return done;
+    }
+
+    private boolean solution()
+    {
+        found++;
+        return (shared != null ? shared.incrementAndGet() : found) >= limit;
+    }
+
+    // ô trống có ít ứng viên nhất, -1 nếu đã điền hết
+    private int mrv()
+    {
+        int best = -1;
+        int bestCount = size + 1;
+
+        for (int i = 0; i < cells; i++)
+        {
+            if (value[i] != 0)
+            {
+                continue;
+            }
+
+            int n = Long.bitCount(candidates(i));
+
+            if (n < bestCount)
+            {
+                best = i;
+                bestCount = n;
+
+                if (n == 2)
+                {
+                    break;
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Place naked and hidden singles until nothing changes.
+     * Returns false as soon as a cell or a unit runs out of options.
+     */
+    private boolean propagate()
+    {
+        boolean changed = true;
+
+        while (changed)
+        {
+            changed = false;
+
+            // naked singles
+            for (int i = 0; i < cells; i++)
+            {
+                if (value[i] != 0)
+                {
+                    continue;
+                }
+
+                long cand = candidates(i);
+
+                if (cand == 0)
+                {
+                    return false;
+                }
+
+                if ((cand & (cand - 1)) == 0)
+                {
+                    place(i, Long.numberOfTrailingZeros(cand) + 1);
+                    changed = true;
+                }
+            }
+
+            // hidden singles
+            for (int u = 0; u < 3 * size; u++)
+            {
+                long once = 0;
+                long twice = 0;
+                long placed = 0;
+
+                for (int i : unit[u])
+                {
+                    if (value[i] != 0)
+                    {
+                        placed |= 1L << (value[i] - 1);
+                        continue;
+                    }
+
+                    long cand = candidates(i);
+                    twice |= once & cand;
+                    once |= cand;
+                }
+
+                if ((once | placed) != all)
+                {
+                    return false; // có chữ số không còn chỗ đặt
+                }
+
+                long single = once & ~twice & ~placed;
+
+                while (single != 0)
+                {
+                    long bit = single & -single;
+                    single ^= bit;
+
+                    for (int i : unit[u])
+                    {
+                        if (value[i] == 0 && (candidates(i) & bit) != 0)
+                        {
+                            place(i, Long.numberOfTrailingZeros(bit) + 1);
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private long candidates(int i)
+    {
+        return all & ~(rows[row[i]] | cols[col[i]] | boxes[block[i]]);
+    }
+
+    private void place(int i, int v)
+    {
+        long bit = 1L << (v - 1);
+
+        value[i] = v;
+        rows[row[i]] |= bit;
+        cols[col[i]] |= bit;
+        boxes[block[i]] |= bit;
+        trail[trailSize++] = i;
+    }
+
+    private void undo(int mark)
+    {
+        while (trailSize > mark)
+        {
+            int i = trail[--trailSize];
+            long bit = ~(1L << (value[i] - 1));
+
+            rows[row[i]] &= bit;
+            cols[col[i]] &= bit;
+            boxes[block[i]] &= bit;
+            value[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Headless batch solver for files of puzzles in the 81-characters-per-line
+ * format ('0' or '.' for empty cells; blank lines and lines starting with '#'
+ * are skipped).
+ *
+ * The input is read through memory-mapped windows of the file, so its size
+ * is not limited by the heap. Puzzles are solved on a thread pool with a
+ * bounded number in flight, and one line per puzzle is written in input order:
+ *
+ *     solution-or-input,status,micros
+ *
+ * where status is solved, failed or invalid. Totals go to standard error.
+ * With --cache N, solutions are kept in a SolutionCache of N entries shared
+ * by all threads, so repeated puzzles and their symmetric copies are solved
+ * once. Each solve is wrapped by SolverEvents, so a Flight Recorder
+ * recording of the run shows per-puzzle solve events and solver checkpoints.
+ *
+ * Usage: java sudoku.Batch input output [--solver name] [--threads N]
+ *                          [--window N] [--timeout ms] [--cache N]
+ */
+public class Batch
+{
+    private static final int CELLS = Sudoku.SIZE * Sudoku.SIZE;
+    private static final long MAP_WINDOW = 64L << 20;   // 64 MB mỗi lần ánh xạ
+    private static final int OUT_BUFFER = 1 << 20;
+
+    private String solverName = "Backtracking";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int window = 4096;
+    private Duration timeout = Duration.ofSeconds(10);
+    private int cacheSize;                  // 0 = không dùng bộ nhớ đệm
+
+    // thống kê
+    private long solved;
+    private long failed;
+    private long invalid;
+
+    private enum Status { SOLVED, FAILED, INVALID }
+
+    // một dòng kết quả, giữ theo thứ tự đầu vào
+    private static final class Result
+    {
+        final String line;
+        final Status status;
+
+        Result(String grid, Status status, long micros)
+        {
+            this.line = grid + ',' + status.name().toLowerCase(Locale.ROOT) + ',' + micros + '\n';
+            this.status = status;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: java sudoku.Batch input output [--solver name] [--threads N]"
+                    + " [--window N] [--timeout ms] [--cache N]");
+            System.exit(2);
+        }
+
+        Batch batch = new Batch();
+
+        for (int i = 2; i + 1 < args.length; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--solver":  batch.solverName = args[i + 1]; break;
+                case "--threads": batch.threads = Integer.parseInt(args[i + 1]); break;
+                case "--window":  batch.window = Integer.parseInt(args[i + 1]); break;
+                case "--timeout": batch.timeout = Duration.ofMillis(Long.parseLong(args[i + 1])); break;
+                case "--cache":   batch.cacheSize = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Solvers.create(batch.solverName);   // kiểm tra tên trước khi đọc file
+
+        long start = System.nanoTime();
+        long total = batch.run(Paths.get(args[0]), Paths.get(args[1]));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.err.printf(Locale.ROOT, "%d puzzles: %d solved, %d failed, %d invalid in %.2f s (%.0f puzzles/s)%n",
+                total, batch.solved, batch.failed, batch.invalid, seconds, total / seconds);
+    }
+
+    /**
+     * Solve every puzzle of the input file and write the results.
+     * Returns the number of puzzles read.
+     */
+    long run(Path input, Path output) throws IOException, InterruptedException
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        SolutionCache cache = cacheSize > 0 ? new SolutionCache(cacheSize) : null;
+        ThreadLocal<Solver> solvers = ThreadLocal.withInitial(() -> {
+            Solver solver = SolverEvents.recorded(Solvers.create(solverName));
+            return cache == null ? solver : new CachingSolver(solver, cache);
+        });
+        Deque<Future<Result>> inFlight = new ArrayDeque<>();
+        long count = 0;
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer buf = ByteBuffer.allocateDirect(OUT_BUFFER);
+            long size = in.size();
+            long pos = 0;
+
+            while (pos < size)
+            {
+                long len = Math.min(MAP_WINDOW, size - pos);
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                boolean last = pos + len == size;
+                int lineStart = 0;
+
+                for (int i = 0; i < len; i++)
+                {
+                    if (map.get(i) != '\n')
+                    {
+                        continue;
+                    }
+
+                    count += submit(map, lineStart, i, pool, solvers, inFlight, buf, out);
+                    lineStart = i + 1;
+                }
+
+                if (last)
+                {
+                    count += submit(map, lineStart, (int) len, pool, solvers, inFlight, buf, out);
+                    pos = size;
+                }
+                else if (lineStart == 0)
+                {
+                    throw new IOException("Line longer than " + MAP_WINDOW + " bytes at offset " + pos);
+                }
+                else
+                {
+                    pos += lineStart;   // dòng dở dang được đọc lại ở cửa sổ sau
+                }
+            }
+
+            while (!inFlight.isEmpty())
+            {
+                write(take(inFlight), buf, out);
+            }
+
+            flush(buf, out);
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        return count;
+    }
+
+    // gửi một dòng đi giải; trả về 1 nếu dòng là một đề
+    private int submit(MappedByteBuffer map, int from, int to, ExecutorService pool, ThreadLocal<Solver> solvers,
+                       Deque<Future<Result>> inFlight, ByteBuffer buf, FileChannel out)
+            throws IOException, InterruptedException
+    {
+        if (to > from && map.get(to - 1) == '\r')
+        {
+            to--;
+        }
+
+        if (to == from || map.get(from) == '#')
+        {
+            return 0;
+        }
+
+        byte[] line = new byte[to - from];
+        map.get(from, line);
+
+        // giới hạn số đề đang chờ: ghi kết quả đầu hàng trước khi nhận thêm
+        while (inFlight.size() >= window)
+        {
+            write(take(inFlight), buf, out);
+        }
+
+        inFlight.addLast(pool.submit(() -> solve(line, solvers.get())));
+        return 1;
+    }
+
+    private Result solve(byte[] line, Solver solver)
+    {
+        String text = new String(line, StandardCharsets.US_ASCII);
+
+        // sai độ dài hoặc có ký tự lạ: không đọc ký tự lạ thành ô trống
+        Sudoku puzzle = line.length == CELLS ? Sudoku.parseExact(text) : null;
+
+        if (puzzle == null)
+        {
+            return new Result(text, Status.INVALID, 0);
+        }
+
+        long start = System.nanoTime();
+        Sudoku result = solver.solve(puzzle, timeout);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        if (result != null && result.solves(puzzle))
+        {
+            return new Result(result.toLine(), Status.SOLVED, micros);
+        }
+
+        return new Result(text, Status.FAILED, micros);
+    }
+
+    private Result take(Deque<Future<Result>> inFlight) throws InterruptedException
+    {
+        try
+        {
+            return inFlight.removeFirst().get();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Solver failed", e.getCause());
+        }
+    }
+
+    private void write(Result result, ByteBuffer buf, FileChannel out) throws IOException
+    {
+        switch (result.status)
+        {
+            case SOLVED:  solved++;  break;
+            case FAILED:  failed++;  break;
+            case INVALID: invalid++; break;
+        }
+
+        byte[] bytes = result.line.getBytes(StandardCharsets.US_ASCII);
+
+        if (buf.remaining() < bytes.length)
+        {
+            flush(buf, out);
+        }
+
+        buf.put(bytes);
+    }
+
+    private static void flush(ByteBuffer buf, FileChannel out) throws IOException
+    {
+        buf.flip();
+
+        while (buf.hasRemaining())
+        {
+            out.write(buf);
+        }
+
+        buf.clear();
+    }
+}
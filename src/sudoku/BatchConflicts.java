@@ -0,0 +1,184 @@
+package sudoku;
+
+/**
+ * Full conflict recount for many boards of one size at once. Boards are
+ * loaded into a structure-of-arrays buffer of digit masks: the masks of
+ * cell i of every board are contiguous (masks[i * capacity + b] = bit v for
+ * digit v, 0 if empty). A unit has filled - bitCount(or of its masks)
+ * conflicts, the same number Sudoku.conflicts() keeps (each extra copy of
+ * a digit in a unit counts once); since every cell lies in three units,
+ * a board's conflicts are 3 * filled cells - the sum of those bit counts.
+ * evaluate() ORs the masks of each unit's cells in straight loops over the
+ * boards, which the JIT compiles to SIMD.
+ *
+ * Below LANES boards the lane loops are too short to pay off, and the
+ * board-by-board evaluateScalar() is used instead; it is also the
+ * reference that matches() checks against. Instances keep scratch state
+ * and are not thread-safe.
+ */
+final class BatchConflicts
+{
+    static final int LANES = 8;
+
+    private final Geometry geo;
+    private final int capacity;
+    private final long[] masks;      // masks[ô * capacity + bảng]
+    private final long[] seen;       // OR các mặt nạ của đơn vị đang xét, theo bảng
+    private final int[] filled;      // số ô đã điền của từng bảng
+    private int count;
+
+    /**
+     * @param box      box size of the boards (3 for 9x9)
+     * @param capacity largest number of boards evaluated at once
+     */
+    BatchConflicts(int box, int capacity)
+    {
+        this.geo = Geometry.of(box);
+        this.capacity = capacity;
+        this.masks = new long[geo.cells * capacity];
+        this.seen = new long[capacity];
+        this.filled = new int[capacity];
+    }
+
+    /** Replace the loaded boards with the given ones (at most capacity). */
+    void load(Sudoku[] boards, int n)
+    {
+        if (n > capacity)
+        {
+            throw new IllegalArgumentException("Batch holds " + capacity + " boards, got " + n);
+        }
+
+        for (int b = 0; b < n; b++)
+        {
+            set(b, boards[b]);
+        }
+
+        count = n;
+    }
+
+    // ghi bảng vào cột b của bộ đệm
+    private void set(int b, Sudoku board)
+    {
+        if (board.boxSize() != geo.box)
+        {
+            throw new IllegalArgumentException("Expected " + geo.size + "x" + geo.size + " boards, got "
+                    + board.size() + "x" + board.size());
+        }
+
+        int n = 0;
+
+        for (int i = 0; i < geo.cells; i++)
+        {
+            int v = board.get(geo.row[i], geo.col[i]);
+            masks[i * capacity + b] = v == 0 ? 0 : 1L << v;
+            n += v == 0 ? 0 : 1;
+        }
+
+        filled[b] = n;
+    }
+
+    /** Number of boards loaded. */
+    int size()
+    {
+        return count;
+    }
+
+    /** out[b] = conflicts of loaded board b, for every loaded board. */
+    void evaluate(int[] out)
+    {
+        if (count < LANES)
+        {
+            evaluateScalar(out);
+            return;
+        }
+
+        int n = count;
+
+        // mỗi ô thuộc đúng 3 đơn vị, nên tổng số ô đã điền của các đơn vị là 3 * filled
+        for (int b = 0; b < n; b++)
+        {
+            out[b] = 3 * filled[b];
+        }
+
+        for (int[] unit : geo.unit)
+        {
+            System.arraycopy(masks, unit[0] * capacity, seen, 0, n);
+
+            for (int k = 1; k < unit.length; k++)
+            {
+                int base = unit[k] * capacity;
+
+                // một ô của mọi bảng: vòng lặp phẳng, không rẽ nhánh
+                for (int b = 0; b < n; b++)
+                {
+                    seen[b] |= masks[base + b];
+                }
+            }
+
+            for (int b = 0; b < n; b++)
+            {
+                out[b] -= Long.bitCount(seen[b]);
+            }
+        }
+    }
+
+    /** Same result as evaluate(), one board and one unit at a time. */
+    void evaluateScalar(int[] out)
+    {
+        for (int b = 0; b < count; b++)
+        {
+            int conflicts = 0;
+
+            for (int[] unit : geo.unit)
+            {
+                long or = 0;
+                int n = 0;
+
+                for (int cell : unit)
+                {
+                    long m = masks[cell * capacity + b];
+
+                    if (m != 0)
+                    {
+                        or |= m;
+                        n++;
+                    }
+                }
+
+                conflicts += n - Long.bitCount(or);
+            }
+
+            out[b] = conflicts;
+        }
+    }
+
+    /**
+     * True if evaluate(), evaluateScalar() and each board's own
+     * conflicts() agree on the given boards.
+     */
+    static boolean matches(Sudoku[] boards)
+    {
+        if (boards.length == 0)
+        {
+            return true;
+        }
+
+        BatchConflicts batch = new BatchConflicts(boards[0].boxSize(), boards.length);
+        int[] fast = new int[boards.length];
+        int[] slow = new int[boards.length];
+
+        batch.load(boards, boards.length);
+        batch.evaluate(fast);
+        batch.evaluateScalar(slow);
+
+        for (int b = 0; b < boards.length; b++)
+        {
+            if (fast[b] != slow[b] || slow[b] != boards[b].conflicts())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
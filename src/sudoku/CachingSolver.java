@@ -0,0 +1,140 @@
+package sudoku;
+
+/**
+ * Puts a SolutionCache in front of another solver. A puzzle seen before,
+ * as given or up to symmetry (see Canonicalizer), is answered from the
+ * cache, mapped back onto the caller's orientation and digits. Only
+ * solutions without conflicts that keep every clue are stored.
+ *
+ * Boards with fewer than 17 clues never have a unique solution and make the
+ * symmetry search slow (nearly every transform ties), so they are only
+ * matched exactly. Boards other than 9x9 go straight to the solver.
+ */
+public class CachingSolver implements Solver
+{
+    private static final int N = Sudoku.SIZE;
+    private static final int MIN_CLUES = 17;
+
+    private final Solver delegate;
+    private final SolutionCache cache;
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+    private SolverListener listener = SolverListener.NONE;
+
+    public CachingSolver(Solver delegate, SolutionCache cache)
+    {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void setListener(SolverListener listener)
+    {
+        this.listener = listener;
+        delegate.setListener(listener);
+    }
+
+    @Override
+    public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+    {
+        if (puzzle.size() != N)
+        {
+            return delegate.solve(puzzle, cancel);
+        }
+
+        String clues = clues(puzzle);
+        String line = cache.exact(clues);
+
+        if (line != null)
+        {
+            listener.finished(0);
+            return fill(puzzle, line);
+        }
+
+        if (clueCount(clues) < MIN_CLUES)
+        {
+            Sudoku result = delegate.solve(puzzle, cancel);
+
+            if (result != null && result.solves(puzzle))
+            {
+                cache.putExact(clues, result.toLine());
+            }
+
+            return result;
+        }
+
+        Canonicalizer.Form form = canonicalizer.canonicalize(puzzle);
+        String canonical = cache.canonical(form.key());
+
+        if (canonical != null)
+        {
+            Sudoku result = form.decode(canonical, puzzle);
+            cache.putExact(clues, result.toLine());
+            listener.finished(0);
+            return result;
+        }
+
+        Sudoku result = delegate.solve(puzzle, cancel);
+
+        if (result != null && result.solves(puzzle))
+        {
+            cache.put(clues, result.toLine(), form.key(), form.encode(result));
+        }
+
+        return result;
+    }
+
+    /** True if the cache holds this exact puzzle (same clues, same orientation). */
+    static boolean cached(SolutionCache cache, Sudoku puzzle)
+    {
+        return puzzle.size() == N && cache.exact(clues(puzzle)) != null;
+    }
+
+    // khóa chính xác: chỉ các ô cố định, ô khác là '.'
+    private static String clues(Sudoku puzzle)
+    {
+        char[] out = new char[N * N];
+
+        for (int r = 0; r < N; r++)
+        {
+            for (int c = 0; c < N; c++)
+            {
+                out[r * N + c] = puzzle.isFixed(r, c) ? (char) ('0' + puzzle.get(r, c)) : '.';
+            }
+        }
+
+        return new String(out);
+    }
+
+    private static int clueCount(String clues)
+    {
+        int n = 0;
+
+        for (int i = 0; i < clues.length(); i++)
+        {
+            if (clues.charAt(i) != '.')
+            {
+                n++;
+            }
+        }
+
+        return n;
+    }
+
+    private static Sudoku fill(Sudoku puzzle, String line)
+    {
+        Sudoku result = puzzle.clone();
+
+        for (int r = 0; r < N; r++)
+        {
+            for (int c = 0; c < N; c++)
+            {
+                if (!result.isFixed(r, c))
+                {
+                    result.set(r, c, line.charAt(r * N + c) - '0');
+                }
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package sudoku;
+
+import java.time.Duration;
+
+/**
+ * Cooperative stop signal for a solve: cancelled explicitly, by a deadline,
+ * or because a parent signal was cancelled. Engines poll isCancelled() every
+ * few thousand steps, so the check stays off the hot path.
+ */
+public class Cancellation
+{
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final Cancellation parent;
+    private final long deadline;       // theo System.nanoTime()
+    private volatile boolean cancelled;
+
+    public Cancellation()
+    {
+        this(null, NO_DEADLINE);
+    }
+
+    private Cancellation(Cancellation parent, long deadline)
+    {
+        this.parent = parent;
+        this.deadline = deadline;
+    }
+
+    /**
+     * A signal that fires once the given time has passed.
+     */
+    public static Cancellation after(Duration timeLimit)
+    {
+        return new Cancellation().child(timeLimit);
+    }
+
+    /**
+     * A signal that fires when this one does, or when cancelled on its own.
+     */
+    public Cancellation child()
+    {
+        return new Cancellation(this, deadline);
+    }
+
+    /**
+     * Like child(), with a deadline that is never later than this one's.
+     */
+    public Cancellation child(Duration timeLimit)
+    {
+        long now = System.nanoTime();
+        long limit = timeLimit.toNanos();
+        long end = (limit >= NO_DEADLINE - now) ? NO_DEADLINE : now + limit;
+
+        return new Cancellation(this, Math.min(end, deadline));
+    }
+
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    public boolean isCancelled()
+    {
+        if (cancelled)
+        {
+            return true;
+        }
+
+        if (deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0)
+        {
+            cancelled = true;
+            return true;
+        }
+
+        return parent != null && parent.isCancelled();
+    }
+}
@@ -0,0 +1,333 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Canonical form of a puzzle under the Sudoku symmetry group: transposition,
+ * permutations of the bands, of the rows inside each band, of the stacks and
+ * of the columns inside each stack, and relabelling of the digits. Only fixed
+ * cells count as clues.
+ *
+ * The canonical form is the lexicographically smallest grid, in row-major
+ * order, reachable by these transforms when digits are relabelled in order
+ * of first appearance (empty cells sort first). For every choice of first
+ * row, the column order is chosen cell by cell along that row, then the
+ * remaining rows slot by slot, with a branch-and-bound search that abandons
+ * a branch as soon as its prefix is larger than the best form found so far.
+ *
+ * Only classic 9x9 boards are supported. Instances keep scratch state and
+ * are not thread-safe.
+ */
+public class Canonicalizer
+{
+    private static final int N = Sudoku.SIZE;
+    private static final int CELLS = N * N;
+    private static final int BOX = 3;
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final int[] grid = new int[CELLS];         // đề sau khi (có thể) chuyển vị
+    private final int[] best = new int[CELLS];         // dạng nhỏ nhất hiện tại
+    private final int[] rows = new int[N];             // hàng đặt vào từng vị trí
+    private final int[][] label = new int[N + 1][N + 1];  // label[s]: nhãn mới trước vị trí s
+    private final int[] next = new int[N + 1];            // số nhãn đã dùng trước vị trí s
+    private final int[][] line = new int[N][N];           // hàng đã đổi nhãn tại vị trí s
+
+    private final int[] cols = new int[N];             // cột đặt vào từng vị trí
+    private final int[][] colLabel = new int[N + 1][N + 1];  // như label, dọc theo hàng đầu
+    private final int[] colNext = new int[N + 1];
+    private boolean transpose;
+
+    // phép biến đổi cho ra dạng nhỏ nhất
+    private final int[] bestRows = new int[N];
+    private final int[] bestLabel = new int[N + 1];
+    private final int[] bestCols = new int[N];
+    private boolean bestTranspose;
+
+    /**
+     * The canonical form of the puzzle's fixed cells, with the transform that
+     * produced it.
+     */
+    public Form canonicalize(Sudoku puzzle)
+    {
+        if (puzzle.size() != N)
+        {
+            throw new IllegalArgumentException("Only " + N + "x" + N + " boards have a canonical form");
+        }
+
+        Arrays.fill(best, INF);
+
+        for (int t = 0; t < 2; t++)
+        {
+            transpose = t == 1;
+
+            for (int r = 0; r < N; r++)
+            {
+                for (int c = 0; c < N; c++)
+                {
+                    int sr = transpose ? c : r;
+                    int sc = transpose ? r : c;
+                    grid[r * N + c] = puzzle.isFixed(sr, sc) ? puzzle.get(sr, sc) : 0;
+                }
+            }
+
+            for (int r = 0; r < N; r++)
+            {
+                rows[0] = r;
+                columns(0, 0, false);
+            }
+        }
+
+        char[] key = new char[CELLS];
+
+        for (int i = 0; i < CELLS; i++)
+        {
+            key[i] = (char) ('0' + best[i]);
+        }
+
+        return new Form(new String(key), bestTranspose, bestRows.clone(), bestCols.clone(), bestLabel);
+    }
+
+    // chọn cột cho vị trí j theo giá trị của hàng đầu rows[0]
+    private void columns(int j, int usedCols, boolean improved)
+    {
+        if (j == N)
+        {
+            System.arraycopy(colLabel[N], 0, label[1], 0, N + 1);
+            next[1] = colNext[N];
+            search(1, 1 << rows[0], improved);
+            return;
+        }
+
+        // đầu chồng: cột bất kỳ của chồng chưa dùng; giữa chồng: cột còn lại của chồng đang xét
+        int from = j % BOX == 0 ? 0 : cols[j - 1] / BOX * BOX;
+        int to = j % BOX == 0 ? N : from + BOX;
+
+        for (int c = from; c < to; c++)
+        {
+            int stack = 0b111 << (c / BOX * BOX);
+
+            if ((usedCols & (j % BOX == 0 ? stack : 1 << c)) != 0)
+            {
+                continue;
+            }
+
+            int[] map = colLabel[j + 1];
+            int n = colNext[j];
+            int v = grid[rows[0] * N + c];
+
+            System.arraycopy(colLabel[j], 0, map, 0, N + 1);
+
+            if (v != 0)
+            {
+                if (map[v] == 0)
+                {
+                    map[v] = ++n;
+                }
+
+                v = map[v];
+            }
+
+            int b = best[j];
+
+            if (v > b)
+            {
+                continue;
+            }
+
+            if (v < b)
+            {
+                best[j] = v;
+                Arrays.fill(best, j + 1, CELLS, INF);
+            }
+
+            colNext[j + 1] = n;
+            cols[j] = c;
+            columns(j + 1, usedCols | (1 << c), improved || v < b);
+        }
+    }
+
+    // đặt một hàng vào vị trí s (s >= 1); improved = tiền tố đã nhỏ hơn dạng tốt nhất cũ
+    private void search(int s, int usedRows, boolean improved)
+    {
+        if (s == N)
+        {
+            if (improved)
+            {
+                bestTranspose = transpose;
+                System.arraycopy(cols, 0, bestCols, 0, N);
+                System.arraycopy(rows, 0, bestRows, 0, N);
+                System.arraycopy(label[N], 0, bestLabel, 0, N + 1);
+            }
+
+            return;
+        }
+
+        // đầu băng: hàng bất kỳ của băng chưa dùng; giữa băng: hàng còn lại của băng đang xét
+        int from = s % BOX == 0 ? 0 : rows[s - 1] / BOX * BOX;
+        int to = s % BOX == 0 ? N : from + BOX;
+
+        for (int r = from; r < to; r++)
+        {
+            int band = 0b111 << (r / BOX * BOX);
+
+            if ((usedRows & (s % BOX == 0 ? band : 1 << r)) != 0)
+            {
+                continue;
+            }
+
+            int cmp = relabel(s, r);
+
+            if (cmp > 0)
+            {
+                continue;
+            }
+
+            if (cmp < 0)
+            {
+                System.arraycopy(line[s], 0, best, s * N, N);
+                Arrays.fill(best, (s + 1) * N, CELLS, INF);
+            }
+
+            rows[s] = r;
+            search(s + 1, usedRows | (1 << r), improved || cmp < 0);
+        }
+    }
+
+    // đổi nhãn hàng r vào line[s] và label[s + 1], so với hàng s của dạng tốt nhất
+    private int relabel(int s, int r)
+    {
+        int[] from = label[s];
+        int[] to = label[s + 1];
+        int[] out = line[s];
+        int n = next[s];
+        int cmp = 0;
+
+        System.arraycopy(from, 0, to, 0, N + 1);
+
+        for (int j = 0; j < N; j++)
+        {
+            int v = grid[r * N + cols[j]];
+
+            if (v != 0)
+            {
+                if (to[v] == 0)
+                {
+                    to[v] = ++n;
+                }
+
+                v = to[v];
+            }
+
+            out[j] = v;
+
+            if (cmp == 0)
+            {
+                int b = best[s * N + j];
+
+                if (v > b)
+                {
+                    return 1;   // lớn hơn ngay ô này, bỏ nhánh
+                }
+
+                cmp = v < b ? -1 : 0;
+            }
+        }
+
+        next[s + 1] = n;
+        return cmp;
+    }
+
+    /**
+     * A canonical key together with the transform from the original puzzle,
+     * used to move solutions between the two orientations.
+     */
+    public static final class Form
+    {
+        private final String key;
+        private final boolean transpose;
+        private final int[] rows;
+        private final int[] cols;
+        private final int[] toCanonical = new int[N + 1];
+        private final int[] toOriginal = new int[N + 1];
+
+        Form(String key, boolean transpose, int[] rows, int[] cols, int[] label)
+        {
+            this.key = key;
+            this.transpose = transpose;
+            this.rows = rows;
+            this.cols = cols;
+
+            // chữ số không có trong đề nhận các nhãn còn lại theo thứ tự tăng dần
+            int n = 0;
+
+            for (int v = 1; v <= N; v++)
+            {
+                n = Math.max(n, label[v]);
+            }
+
+            for (int v = 1; v <= N; v++)
+            {
+                toCanonical[v] = label[v] != 0 ? label[v] : ++n;
+                toOriginal[toCanonical[v]] = v;
+            }
+        }
+
+        /** 81 characters, '0' for empty cells. Equal for puzzles in the same symmetry class. */
+        public String key()
+        {
+            return key;
+        }
+
+        /** A solution of the original puzzle, written in the canonical orientation. */
+        public String encode(Sudoku solution)
+        {
+            char[] out = new char[CELLS];
+
+            for (int i = 0; i < N; i++)
+            {
+                for (int j = 0; j < N; j++)
+                {
+                    out[i * N + j] = (char) ('0' + toCanonical[solution.get(row(i, j), col(i, j))]);
+                }
+            }
+
+            return new String(out);
+        }
+
+        /**
+         * A canonical solution (from encode on any puzzle with the same key)
+         * mapped back onto this puzzle: fixed cells are kept, the others filled.
+         */
+        public Sudoku decode(String canonical, Sudoku puzzle)
+        {
+            Sudoku result = puzzle.clone();
+
+            for (int i = 0; i < N; i++)
+            {
+                for (int j = 0; j < N; j++)
+                {
+                    int r = row(i, j);
+                    int c = col(i, j);
+
+                    if (!result.isFixed(r, c))
+                    {
+                        result.set(r, c, toOriginal[canonical.charAt(i * N + j) - '0']);
+                    }
+                }
+            }
+
+            return result;
+        }
+
+        // ô (i, j) của dạng chuẩn nằm ở đâu trong đề gốc
+        private int row(int i, int j)
+        {
+            return transpose ? cols[j] : rows[i];
+        }
+
+        private int col(int i, int j)
+        {
+            return transpose ? rows[i] : cols[j];
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package sudoku;
+
+import java.util.Locale;
+
+/**
+ * Snapshot of a running solve, passed to SolverListener.checkpoint at the
+ * points where a solver already checks for cancellation: every 1024
+ * iterations (Hill_Climbing, Simulated_Annealing) or search nodes
+ * (Backtracking), every 256 iterations (Tabu_Search, whose iterations scan
+ * a whole neighbourhood), and every generation (Genetic, per island for
+ * Island_Genetic). Values that do not apply to a solver are NaN, or -1 for
+ * conflict counts.
+ */
+public final class Checkpoint
+{
+    /** Simple class name of the engine that reported. */
+    public final String solver;
+    /** Iteration, generation or search node count so far. */
+    public final long step;
+    /** Time since this engine's solve started. */
+    public final long elapsedNanos;
+    /** Conflicts of the current board (best of the population for Genetic). */
+    public final int conflicts;
+    /** Fewest conflicts seen so far. */
+    public final int best;
+    /** Accepted moves / evaluated moves since the previous checkpoint. */
+    public final double acceptance;
+    /** Simulated_Annealing temperature. */
+    public final double temperature;
+    /** Genetic population diversity: mean fraction of cells that differ from the best. */
+    public final double diversity;
+
+    Checkpoint(String solver, long step, long elapsedNanos, int conflicts, int best,
+               double acceptance, double temperature, double diversity)
+    {
+        this.solver = solver;
+        this.step = step;
+        this.elapsedNanos = elapsedNanos;
+        this.conflicts = conflicts;
+        this.best = best;
+        this.acceptance = acceptance;
+        this.temperature = temperature;
+        this.diversity = diversity;
+    }
+
+    /** Steps per second since the solve started. */
+    public double stepsPerSecond()
+    {
+        return elapsedNanos > 0 ? step * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(Locale.ROOT,
+                "%s step=%d conflicts=%d best=%d steps/s=%.0f acceptance=%.3f temperature=%.4f diversity=%.3f",
+                solver, step, conflicts, best, stepsPerSecond(), acceptance, temperature, diversity);
+    }
+}
@@ -0,0 +1,64 @@
+package sudoku;
+
+/**
+ * Difficulty levels of generated puzzles, by the number of clues the
+ * generator tries to get down to while keeping the solution unique.
+ * Targets are for the 81 cells of a classic board; larger boards keep the
+ * same fraction of clues.
+ */
+public enum Difficulty
+{
+    EASY(40), MEDIUM(32), HARD(26);
+
+    private final int targetClues;
+
+    Difficulty(int targetClues)
+    {
+        this.targetClues = targetClues;
+    }
+
+    public int targetClues()
+    {
+        return targetClues;
+    }
+
+    /** Clue target for a board with the given number of cells. */
+    public int targetClues(int cells)
+    {
+        return Math.round(targetClues * cells / 81f);
+    }
+
+    /**
+     * The level whose clue target is nearest to the puzzle's number of
+     * fixed cells (the harder one on a tie), for puzzles that did not come
+     * from the generator.
+     */
+    public static Difficulty classify(Sudoku puzzle)
+    {
+        int n = puzzle.size();
+        int clues = 0;
+
+        for (int r = 0; r < n; r++)
+        {
+            for (int c = 0; c < n; c++)
+            {
+                if (puzzle.isFixed(r, c))
+                {
+                    clues++;
+                }
+            }
+        }
+
+        Difficulty best = EASY;
+
+        for (Difficulty d : values())
+        {
+            if (Math.abs(d.targetClues(n * n) - clues) <= Math.abs(best.targetClues(n * n) - clues))
+            {
+                best = d;
+            }
+        }
+
+        return best;
+    }
+}
@@ -2,25 +2,44 @@ package sudoku;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 
 public class GUI extends JFrame
 {
-    private JTextField[][] cells = new JTextField[9][9];
+    private int box = 3;                 // cạnh khối: 3 → 9x9, 4 → 16x16, 5 → 25x25
+    private int n = 9;                   // cạnh bảng
+    private JTextField[][] cells;
+    private JPanel gridPanel = new JPanel();
     private Sudoku origin;
     private Sudoku puzzle;
 
     // ⭐ ĐỀ GỐC – KHÔNG BAO GIỜ THAY ĐỔI
     private boolean[][] given = new boolean[9][9];
 
-    private Solver gene = new Genetic();
-    private Random rd = new Random();
+    // lời giải đã tìm, dùng lại cho đề lặp lại hoặc đối xứng với đề cũ
+    private final SolutionCache cache = new SolutionCache(256);
+    private Solver solver = new CachingSolver(new Genetic(), cache);  // thuật toán dùng cho nút "Complete"
+    private Difficulty difficulty = Difficulty.MEDIUM;  // mức của đề mẫu
 
-    // ===== FONT =====
-    private final Font FONT_FIXED  = new Font(Font.SANS_SERIF, Font.BOLD, 18);
-    private final Font FONT_NORMAL = new Font(Font.SANS_SERIF, Font.PLAIN, 18);
+    // ngân sách kiểm tra đề trước khi giải: số nút × số ô (khoảng 600 nghìn nút với 9x9)
+    private static final long COUNT_BUDGET = 50_000_000;
+
+    // ===== CHẠY NỀN =====
+    private Cancellation running;                    // lượt chạy hiện tại, null nếu rảnh
+    private JProgressBar progress = new JProgressBar();
+    private JButton solveBtn  = new JButton("Complete");
+    private JButton cancelBtn = new JButton("Cancel");
+    private JButton resetBtn  = new JButton("Reset");
+    private JButton sampleBtn = new JButton("Load sample");
+    private JButton emptyBtn  = new JButton("All empty");
+    private JComboBox<String> sizeBox = new JComboBox<>(new String[] { "9x9", "16x16", "25x25" });
+
+    // ===== FONT ===== (nhỏ dần theo cỡ bảng)
+    private Font FONT_FIXED  = new Font(Font.SANS_SERIF, Font.BOLD, 18);
+    private Font FONT_NORMAL = new Font(Font.SANS_SERIF, Font.PLAIN, 18);
 
     public GUI()
     {
@@ -28,12 +47,107 @@ public class GUI extends JFrame
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
-        JPanel gridPanel = new JPanel(new GridLayout(9, 9));
+        buildGrid();
+        add(gridPanel, BorderLayout.CENTER);
+
+        // ===== BUTTONS =====
+        solveBtn.addActionListener(e -> {
+
+            for (int r = 0; r < n; r++)
+                for (int c = 0; c < n; c++)
+                    if (puzzle.get(r, c) != 0) {
+                        puzzle.setFixed(r, c, true);
+                        given[r][c] = true;
+                    }
+
+            refreshUIFromModel();
+            solveInBackground();
+        });
+
+        cancelBtn.addActionListener(e -> {
+            if (running != null) running.cancel();
+        });
+
+        resetBtn.addActionListener(e -> {
+            puzzle = origin.clone();
+            refreshUIFromModel();
+        });
+
+        // đề mẫu lấy ở luồng nền: kho rỗng thì phải tạo đề mới
+        sampleBtn.addActionListener(e -> generateInBackground());
+
+        emptyBtn.addActionListener(e -> {
+            puzzle = new Sudoku(box);
+            origin = puzzle.clone();
+
+            // ⭐ xóa toàn bộ đề gốc
+            for (int r = 0; r < n; r++)
+                for (int c = 0; c < n; c++)
+                    given[r][c] = false;
+
+            refreshUIFromModel();
+        });
+
+        // chọn thuật toán giải
+        JComboBox<String> solverBox = new JComboBox<>(Solvers.NAMES.toArray(new String[0]));
+        solverBox.addActionListener(e -> solver = new CachingSolver(
+                Solvers.create((String) solverBox.getSelectedItem()), cache));
+
+        JPanel solveRow = new JPanel();
+        solveRow.add(solverBox);
+        solveRow.add(solveBtn);
+        solveRow.add(cancelBtn);
+
+        JComboBox<Difficulty> difficultyBox = new JComboBox<>(Difficulty.values());
+        difficultyBox.setSelectedItem(difficulty);
+        difficultyBox.addActionListener(e -> difficulty = (Difficulty) difficultyBox.getSelectedItem());
+
+        sizeBox.addActionListener(e -> resize(3 + sizeBox.getSelectedIndex()));
+
+        JPanel boardRow = new JPanel();
+        boardRow.add(sizeBox);
+        boardRow.add(resetBtn);
+        boardRow.add(difficultyBox);
+        boardRow.add(sampleBtn);
+        boardRow.add(emptyBtn);
+
+        progress.setStringPainted(true);
+        progress.setString("");
+
+        JPanel bottom = new JPanel(new GridLayout(3, 1));
+        bottom.add(progress);
+        bottom.add(solveRow);
+        bottom.add(boardRow);
 
-        // ===== GRID =====
-        for (int r = 0; r < 9; r++)
+        add(bottom, BorderLayout.SOUTH);
+
+        // ===== INIT =====
+        // bảng trống cho tới khi đề mẫu đầu tiên được tạo xong ở luồng nền
+        puzzle = new Sudoku(box);
+        origin = puzzle.clone();
+        refreshUIFromModel();
+        generateInBackground();
+
+        setSize(640, 760);
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    // ===== GRID =====
+    // dựng lại lưới ô nhập theo cỡ bảng hiện tại
+    private void buildGrid()
+    {
+        gridPanel.removeAll();
+        gridPanel.setLayout(new GridLayout(n, n));
+        cells = new JTextField[n][n];
+
+        int fontSize = n <= 9 ? 18 : n <= 16 ? 14 : 11;
+        FONT_FIXED  = new Font(Font.SANS_SERIF, Font.BOLD, fontSize);
+        FONT_NORMAL = new Font(Font.SANS_SERIF, Font.PLAIN, fontSize);
+
+        for (int r = 0; r < n; r++)
         {
-            for (int c = 0; c < 9; c++)
+            for (int c = 0; c < n; c++)
             {
                 JTextField tf = new JTextField();
                 tf.setHorizontalAlignment(JTextField.CENTER);
@@ -41,14 +155,14 @@ public class GUI extends JFrame
 
                 int rr = r, cc = c;
 
-                // chỉ cho nhập 1-9
+                // chỉ cho nhập một ký hiệu hợp lệ: 1-9, rồi A, B, ... với bảng lớn
                 tf.addKeyListener(new KeyAdapter()
                 {
                     @Override
                     public void keyTyped(KeyEvent e) 
                     {
-                        char ch = e.getKeyChar();
-                        if (!Character.isDigit(ch) || ch == '0' || tf.getText().length() >= 1)
+                        int v = Sudoku.digit(e.getKeyChar(), n);
+                        if (v == 0 || tf.getText().length() >= 1)
                             e.consume();
                     }
                 });
@@ -62,7 +176,7 @@ public class GUI extends JFrame
                         if (puzzle.isFixed(rr, cc)) return;
 
                         String t = tf.getText();
-                        puzzle.set(rr, cc, t.isEmpty() ? 0 : t.charAt(0) - '0');
+                        puzzle.set(rr, cc, t.isEmpty() ? 0 : Sudoku.digit(t.charAt(0), n));
                     }
                 });
 
@@ -90,10 +204,10 @@ public class GUI extends JFrame
                 JPanel wrap = new JPanel(new BorderLayout());
                 wrap.add(tf);
 
-                int top    = (r % 3 == 0) ? 3 : 1;
-                int left   = (c % 3 == 0) ? 3 : 1;
-                int bottom = (r == 8) ? 3 : 1;
-                int right  = (c == 8) ? 3 : 1;
+                int top    = (r % box == 0) ? 3 : 1;
+                int left   = (c % box == 0) ? 3 : 1;
+                int bottom = (r == n - 1) ? 3 : 1;
+                int right  = (c == n - 1) ? 3 : 1;
 
                 wrap.setBorder(BorderFactory.createMatteBorder(
                         top, left, bottom, right, Color.BLACK));
@@ -102,87 +216,223 @@ public class GUI extends JFrame
             }
         }
 
-        add(gridPanel, BorderLayout.CENTER);
+        gridPanel.revalidate();
+        gridPanel.repaint();
+    }
 
-        // ===== BUTTONS =====
-        JPanel bottom = new JPanel();
-        JButton solveBtn = new JButton("Complete");
-        solveBtn.addActionListener(e -> {
+    // đổi cỡ bảng: bắt đầu lại với bảng trống
+    private void resize(int newBox)
+    {
+        if (newBox == box) return;
 
-            for (int r = 0; r < 9; r++)
-                for (int c = 0; c < 9; c++)
-                    if (puzzle.get(r, c) != 0) {
-                        puzzle.setFixed(r, c, true);
-                        given[r][c] = true;
-                    }
+        box = newBox;
+        n = box * box;
+        given = new boolean[n][n];
+        puzzle = new Sudoku(box);
+        origin = puzzle.clone();
+
+        buildGrid();
+        refreshUIFromModel();
+    }
+
+    // ===== BACKGROUND =====
+    private void generateInBackground()
+    {
+        int b = box;
+        Difficulty d = difficulty;
 
-            // ⭐ 2. SOLVE
-            Sudoku solved = gene.solve(puzzle.clone());
-            if (solved == null) {
-                JOptionPane.showMessageDialog(this, "Solver failed!");
-                return;
+        setBusy(true);
+        progress.setIndeterminate(true);
+        progress.setString("Generating...");
+
+        new SwingWorker<Sudoku, Void>()
+        {
+            @Override
+            protected Sudoku doInBackground()
+            {
+                // đề 9x9 lấy từ kho đã tạo sẵn; bảng lớn hơn được tạo mới
+                return b == 3 ? PuzzlePool.shared().take(d)
+                        : new PuzzleGenerator(new SplittableRandom(), b).generate(d);
             }
 
-            // ⭐ 3. CHỈ ĐIỀN Ô TRỐNG
-            for (int r = 0; r < 9; r++)
-                for (int c = 0; c < 9; c++)
-                    if (!puzzle.isFixed(r, c))
-                        puzzle.set(r, c, solved.get(r, c));
+            @Override
+            protected void done()
+            {
+                Sudoku sample = result(this);
 
-            origin = puzzle.clone();
-            refreshUIFromModel();
-        });
+                setBusy(false);
+                progress.setString("");
 
-        JButton resetBtn = new JButton("Reset");
-        resetBtn.addActionListener(e -> {
-            puzzle = origin.clone();
-            refreshUIFromModel();
-        });
+                if (failed(this)) return;
 
-        JButton sampleBtn = new JButton("Load sample");
-        sampleBtn.addActionListener(e -> {
-            loadSamplePuzzle();
-            refreshUIFromModel();
-        });
+                // bỏ qua nếu người dùng đã đổi cỡ bảng trong lúc chờ
+                if (sample != null && sample.boxSize() == box) {
+                    applyPuzzle(sample);
+                    refreshUIFromModel();
+                }
+            }
+        }.execute();
+    }
 
-        JButton emptyBtn = new JButton("All empty");
-        emptyBtn.addActionListener(e -> {
-            puzzle = new Sudoku();
-            origin = puzzle.clone();
+    private void solveInBackground()
+    {
+        Solver s = solver;
+        Sudoku work = puzzle.clone();
+        Cancellation cancel = new Cancellation();
 
-            // ⭐ xóa toàn bộ đề gốc
-            for (int r = 0; r < 9; r++)
-                for (int c = 0; c < 9; c++)
-                    given[r][c] = false;
+        running = cancel;
+        setBusy(true);
+        progress.setIndeterminate(true);
+        progress.setString("Solving...");
 
-            refreshUIFromModel();
-        });
+        new SwingWorker<Sudoku, Integer>()
+        {
+            private long solutions;   // số lời giải của đề, đếm tối đa 2; -1 nếu chưa rõ
 
-        bottom.add(solveBtn);
-        bottom.add(resetBtn);
-        bottom.add(sampleBtn);
-        bottom.add(emptyBtn);
+            @Override
+            protected Sudoku doInBackground()
+            {
+                // kiểm tra đề người dùng nhập trước khi chạy bộ giải
+                solutions = new Backtracking().countSolutions(work, 2, COUNT_BUDGET / (work.size() * work.size()), cancel);
 
-        add(bottom, BorderLayout.SOUTH);
+                if (solutions == 0)
+                {
+                    return null;
+                }
 
-        // ===== INIT =====
-        loadSamplePuzzle();
-        refreshUIFromModel();
+                s.setListener((conflicts, step) -> publish(conflicts));
 
-        setSize(640, 720);
-        setLocationRelativeTo(null);
-        setVisible(true);
+                try
+                {
+                    return s.solve(work, cancel);
+                }
+                finally
+                {
+                    s.setListener(SolverListener.NONE);
+                }
+            }
+
+            // số xung đột tốt nhất hiện tại → thanh tiến trình
+            @Override
+            protected void process(List<Integer> chunks)
+            {
+                int conflicts = chunks.get(chunks.size() - 1);
+
+                if (progress.isIndeterminate())
+                {
+                    progress.setIndeterminate(false);
+                    progress.setMaximum(Math.max(1, conflicts));
+                }
+
+                progress.setValue(progress.getMaximum() - conflicts);
+                progress.setString("Conflicts: " + conflicts);
+            }
+
+            @Override
+            protected void done()
+            {
+                Sudoku solved = result(this);
+
+                running = null;
+                setBusy(false);
+
+                if (failed(this)) return;
+
+                if (solved == null) {
+                    if (solutions == 0 && !isCancelled()) {
+                        progress.setString("");
+                        JOptionPane.showMessageDialog(GUI.this, "This board has no solution!");
+                    } else if (cancel.isCancelled()) {
+                        progress.setString("Cancelled");
+                    } else {
+                        progress.setString("");
+                        JOptionPane.showMessageDialog(GUI.this, "Solver failed!");
+                    }
+                    return;
+                }
+
+                // ⭐ 3. CHỈ ĐIỀN Ô TRỐNG
+                for (int r = 0; r < n; r++)
+                    for (int c = 0; c < n; c++)
+                        if (!puzzle.isFixed(r, c))
+                            puzzle.set(r, c, solved.get(r, c));
+
+                progress.setString("Conflicts: " + solved.conflicts()
+                        + (solutions > 1 ? " (board has several solutions)"
+                        : solutions < 0 ? " (uniqueness unknown)" : ""));
+                origin = puzzle.clone();
+                refreshUIFromModel();
+            }
+        }.execute();
+    }
+
+    // kết quả của luồng nền, null nếu lỗi hoặc bị hủy
+    private static Sudoku result(SwingWorker<Sudoku, ?> worker)
+    {
+        try
+        {
+            return worker.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException e)
+        {
+            return null;
+        }
+    }
+
+    // báo lỗi của luồng nền bằng hộp thoại; true nếu luồng nền đã ném lỗi
+    private boolean failed(SwingWorker<Sudoku, ?> worker)
+    {
+        try
+        {
+            if (worker.isCancelled()) return false;
+            worker.get();
+            return false;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            String message = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+
+            progress.setString("Error");
+            JOptionPane.showMessageDialog(this, "Error: " + message, "Sudoku", JOptionPane.ERROR_MESSAGE);
+            return true;
+        }
+    }
+
+    private void setBusy(boolean busy)
+    {
+        solveBtn.setEnabled(!busy);
+        resetBtn.setEnabled(!busy);
+        sampleBtn.setEnabled(!busy);
+        emptyBtn.setEnabled(!busy);
+        sizeBox.setEnabled(!busy);
+        cancelBtn.setEnabled(busy);
+
+        if (!busy)
+        {
+            progress.setIndeterminate(false);
+        }
     }
 
     // ===== UI =====
     private void refreshUIFromModel()
     {
-        for (int r = 0; r < 9; r++)
-            for (int c = 0; c < 9; c++) 
+        for (int r = 0; r < n; r++)
+            for (int c = 0; c < n; c++) 
             {
                 JTextField tf = cells[r][c];
                 int v = puzzle.get(r, c);
-                tf.setText(v == 0 ? "" : String.valueOf(v));
+                tf.setText(v == 0 ? "" : String.valueOf(Sudoku.symbol(v)));
                 updateCellAppearance(r, c);
             }
     }
@@ -203,39 +453,14 @@ public class GUI extends JFrame
     }
 
     // ===== LOAD SAMPLE =====
-    private void loadSamplePuzzle()
+    // chạy trên luồng giao diện
+    private void applyPuzzle(Sudoku sample)
     {
-        Sudoku full = new Sudoku();
-        full.fillRandomRows(rd);
-        Sudoku solved = gene.solve(full);
-
-        int[][] data = solved.getGridCopy();
-
-        ArrayList<int[]> pos = new ArrayList<>();
-        for (int r = 0; r < 9; r++)
-            for (int c = 0; c < 9; c++)
-                pos.add(new int[]{r, c});
-
-        for (int i = pos.size() - 1; i > 0; i--) 
-        {
-            int j = rd.nextInt(i + 1);
-            int[] t = pos.get(i);
-            pos.set(i, pos.get(j));
-            pos.set(j, t);
-        }
-
-        int clues = rd.nextInt(25, 40);
-        for (int i = clues; i < 81; i++) 
-        {
-            int[] p = pos.get(i);
-            data[p[0]][p[1]] = 0;
-        }
-
-        puzzle = new Sudoku(data);
+        puzzle = sample;
 
         // ⭐ đánh dấu đề gốc
-        for (int r = 0; r < 9; r++)
-            for (int c = 0; c < 9; c++) 
+        for (int r = 0; r < n; r++)
+            for (int c = 0; c < n; c++) 
             {
                 if (puzzle.get(r, c) != 0) 
                 {
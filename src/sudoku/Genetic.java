@@ -1,18 +1,50 @@
 package sudoku;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
  * Simple Genetic Algorithm for Sudoku.
  * Representation: each individual is a Sudoku that respects fixed cells.
  * Fitness: number of conflicts (lower better). Goal: reach 0.
+ * The fitness is the board's own running conflict count, so it is settled
+ * when an individual is filled, crossed over or mutated and never rescanned.
+ * Cells forced by the clues are filled in before the first generation (see
+ * Propagation) and stay fixed; the others start from their candidates.
+ * The two generations are preallocated (see Population): elites and
+ * children are copied over the boards of the previous generation, so a
+ * generation allocates no boards.
+ * With setCheckpoints(), the run is saved every few generations by a
+ * background writer (see GeneticCheckpoint); resume() continues a saved
+ * run and solveFrom() starts a new one from its population.
+ * Not thread-safe: use one instance per concurrent solve.
  */
 public class Genetic implements Solver
 {
-    private int populationSize = 500;
-    private int maxGenerations = 2000;
-    private double mutationRate = 0.06;
-    private Random rd = new Random();
+
+    // giá trị mặc định, cũng là giá trị dự phòng của SolverProfile
+    static final int POPULATION_SIZE = 500;
+    static final int MAX_GENERATIONS = 2000;
+    static final double MUTATION_RATE = 0.06;
+
+    // số phần khi lai song song, cố định để một lần chạy có seed (hay chạy tiếp
+    // từ checkpoint) rút cùng các số trên máy có số lõi bất kỳ
+    private static final int STREAMS = 32;
+
+    private int populationSize = POPULATION_SIZE;
+    private int maxGenerations = MAX_GENERATIONS;
+    private double mutationRate = MUTATION_RATE;
+    private SplittableRandom rd = new SplittableRandom();
+    private SolverListener listener = SolverListener.NONE;
+    private Propagation prep;            // đề đang giải sau khi suy luận, cho individual
+    private MoveTable moves;             // cột tự do của đề đang giải, cho mutate
+    private SplittableRandom[] streams;  // một bộ sinh cho mỗi phần khi lai song song
+    private Path checkpointFile;          // null: không lưu
+    private int checkpointEvery;
+    private IOException checkpointFailure;   // lỗi ghi checkpoint của lần giải gần nhất
 
     public Genetic() { }
 
@@ -23,79 +55,320 @@ public class Genetic implements Solver
         this.mutationRate = mutRate;
     }
 
+    public Genetic(long seed)
+    {
+        this.rd = new SplittableRandom(seed);
+    }
+
+    public Genetic(int popSize, int maxGen, double mutRate, long seed)
+    {
+        this(popSize, maxGen, mutRate);
+        this.rd = new SplittableRandom(seed);
+    }
+
     @Override
-    public Sudoku solve(Sudoku puzzle /*, long timeLimitMillis*/)
+    public void setListener(SolverListener listener)
     {
-//        long endTime = System.currentTimeMillis() + timeLimitMillis;
+        this.listener = listener;
+    }
 
-        // initialize population
-        List<Sudoku> pop = new ArrayList<>();
+    /**
+     * Save the run to file every given number of generations, and once
+     * more when it ends; null turns saving off. A failed write does not
+     * stop the solve: check checkpointFailure() afterwards.
+     */
+    public void setCheckpoints(Path file, int everyGenerations)
+    {
+        if (file != null && everyGenerations < 1)
+        {
+            throw new IllegalArgumentException("Checkpoint interval must be positive, got " + everyGenerations);
+        }
 
-        for (int i = 0; i < populationSize; i++)
+        this.checkpointFile = file;
+        this.checkpointEvery = everyGenerations;
+    }
+
+    /** The first checkpoint write that failed during the last solve, or null. */
+    public IOException checkpointFailure()
+    {
+        return checkpointFailure;
+    }
+
+    @Override
+    public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+    {
+        return run(puzzle, cancel, null, false);
+    }
+
+    /**
+     * Continue the run saved in the checkpoint from its generation, with
+     * its population, best board and random state, up to this instance's
+     * maxGenerations in total. Seeded the same way, a resumed run draws the
+     * same numbers the original would have.
+     */
+    public Sudoku resume(Sudoku puzzle, GeneticCheckpoint checkpoint, Cancellation cancel)
+    {
+        return run(puzzle, cancel, checkpoint, true);
+    }
+
+    /**
+     * A new run whose first generation is the checkpoint's population
+     * (repeated if this instance's population is larger, cut if smaller),
+     * with this instance's parameters and generator.
+     */
+    public Sudoku solveFrom(Sudoku puzzle, GeneticCheckpoint checkpoint, Cancellation cancel)
+    {
+        return run(puzzle, cancel, checkpoint, false);
+    }
+
+    private Sudoku run(Sudoku puzzle, Cancellation cancel, GeneticCheckpoint from, boolean resume)
+    {
+        if (from != null && !from.matches(puzzle))
         {
-            Sudoku s = puzzle.clone();
-            s.fillRandomRows(rd);
-            pop.add(s);
+            throw new IllegalArgumentException("Checkpoint was taken on a different puzzle");
         }
 
-        Sudoku best = null;
+        if (resume)
+        {
+            rd = new SplittableRandom(from.seed());
+        }
+
+        prepare(puzzle);
+
+        // initialize population
+        Population pop = population();
+        Sudoku best = prep.board().clone();
         int bestFit = Integer.MAX_VALUE;
+        int gen = 0;
+
+        if (from == null)
+        {
+            breed(pop.current(), 0, this::individual);
+        }
+        else
+        {
+            from.loadPopulation(pop.current(), prep.board());
+        }
+
+        if (resume)
+        {
+            gen = from.generation();
+
+            if (from.loadBest(best, prep.board()))
+            {
+                bestFit = best.conflicts();
+            }
+        }
 
-        for (int gen = 0; gen < maxGenerations; gen++)
+        checkpointFailure = null;
+        GeneticCheckpoint.Writer writer = checkpointFile == null ? null
+                : new GeneticCheckpoint.Writer(checkpointFile, puzzle.boxSize(), populationSize);
+        int first = gen;
+        long start = System.nanoTime();
+
+        for (; gen < maxGenerations; gen++)
         {
-//            if (System.currentTimeMillis() > endTime)
-//            {
-//                break;
-//            }
+            // kiểm tra hủy / hết giờ mỗi thế hệ
+            if (cancel.isCancelled())
+            {
+                break;
+            }
+
+            // lưu đầu thế hệ; bộ sinh được gieo lại dù bộ ghi có nhận hay không,
+            // để một lần chạy có seed luôn cho cùng kết quả
+            if (writer != null && gen > first && gen % checkpointEvery == 0)
+            {
+                long seed = reseed();
+                writer.offer(puzzle, pop.current(), bestFit == Integer.MAX_VALUE ? null : best, gen, seed);
+            }
 
             // evaluate
-            Collections.sort(pop, Comparator.comparingInt(Sudoku::conflicts));
+            pop.sort();
+            Sudoku[] parents = pop.current();
 
-            if (best == null || pop.get(0).conflicts() < bestFit)
+            if (parents[0].conflicts() < bestFit)
             {
-                best = pop.get(0).clone();
+                best.copyFrom(parents[0]);
                 bestFit = best.conflicts();
+                listener.improved(bestFit, gen);
 
                 if (bestFit == 0)
                 {
-                    return best; // perfect solution found
+                    break; // perfect solution found
                 }
             }
 
-            // selection: keep elite
-            int elite = populationSize / 8;
-            List<Sudoku> newPop = new ArrayList<>();
+            if (listener != SolverListener.NONE)
+            {
+                listener.checkpoint(new Checkpoint("Genetic", gen, System.nanoTime() - start, parents[0].conflicts(),
+                        bestFit, Double.NaN, Double.NaN, diversity(parents)));
+            }
+
+            // selection: keep elite (chép đè lên bảng của thế hệ sau, không cấp phát)
+            int elite = eliteCount(populationSize);
+            Sudoku[] children = pop.next();
 
             for (int i = 0; i < elite; i++)
             {
-                newPop.add(pop.get(i).clone());
+                children[i].copyFrom(parents[i]);
             }
 
             // create remaining individuals
-            while (newPop.size() < populationSize)
+            breed(children, elite, (child, rnd) -> offspring(parents, child, rnd));
+
+            pop.swap();
+        }
+
+        // trạng thái cuối, để resume() chạy tiếp sau khi bị hủy hoặc hết số thế hệ
+        if (writer != null)
+        {
+            writer.writeNow(puzzle, pop.current(), bestFit == Integer.MAX_VALUE ? null : best, gen, reseed());
+
+            try
+            {
+                writer.close();
+            }
+            catch (IOException e)
             {
-                Sudoku p1 = tournament(pop, 5);
-                Sudoku p2 = tournament(pop, 5);
+                checkpointFailure = e;
+            }
+        }
+
+        listener.finished(gen);
+        return bestFit == Integer.MAX_VALUE ? null : best;
+    }
+
+    // gieo lại rd và các luồng con từ một số của chính rd; trả về số đó để lưu
+    private long reseed()
+    {
+        long seed = rd.nextLong();
+
+        rd = new SplittableRandom(seed);
+        split();
+        return seed;
+    }
+
+    /**
+     * Overwrite out[from..] in parallel. Chunk k always takes the same
+     * indices and draws from its own generator, split from rd once per
+     * solve and at each checkpoint, so a seeded run stays reproducible.
+     */
+    private void breed(Sudoku[] out, int from, Offspring make)
+    {
+        int chunks = streams.length;
 
-                Sudoku child = crossover(p1, p2);
-                mutate(child);
+        IntStream.range(0, chunks).parallel().forEach(k -> {
+            SplittableRandom rnd = streams[k];
 
-                newPop.add(child);
+            for (int i = from + k; i < out.length; i += chunks)
+            {
+                make.fill(out[i], rnd);
             }
+        });
+    }
+
+    private interface Offspring
+    {
+        void fill(Sudoku target, RandomGenerator rnd);
+    }
+
+    /**
+     * Mean fraction of cells in which an individual differs from the best
+     * one, over at most 32 individuals spread across the sorted population.
+     */
+    static double diversity(Sudoku[] sorted)
+    {
+        int step = Math.max(1, sorted.length / 32);
+        int cells = sorted[0].size() * sorted[0].size();
+        long differ = 0;
+        int n = 0;
 
-            pop = newPop;
+        for (int i = step; i < sorted.length; i += step)
+        {
+            differ += sorted[0].distance(sorted[i]);
+            n++;
         }
 
-        return best;
+        return n == 0 ? 0 : (double) differ / ((double) n * cells);
+    }
+
+    /**
+     * Propagate the puzzle's constraints and build the per-puzzle tables
+     * used by individual() and mutate(). solve() does this itself; callers
+     * of offspring() (Island_Genetic) call it once before sharing this
+     * instance between threads.
+     */
+    void prepare(Sudoku puzzle)
+    {
+        prep = new Propagation(puzzle);
+        moves = new MoveTable(prep.board());
+        streams = new SplittableRandom[STREAMS];
+        split();
+    }
+
+    private void split()
+    {
+        for (int k = 0; k < streams.length; k++)
+        {
+            streams[k] = rd.split();
+        }
+    }
+
+    /**
+     * Two generations of populationSize boards for the prepared puzzle;
+     * both hold the puzzle itself until filled.
+     */
+    Population population()
+    {
+        Sudoku[] current = new Sudoku[populationSize];
+        Sudoku[] next = new Sudoku[populationSize];
+
+        for (int i = 0; i < populationSize; i++)
+        {
+            current[i] = prep.board().clone();
+            next[i] = prep.board().clone();
+        }
+
+        return new Population(current, next);
+    }
+
+    // cá thể ngẫu nhiên: các ô suy ra được giữ nguyên, ô còn lại lấy từ ứng viên
+    void individual(Sudoku target, RandomGenerator rnd)
+    {
+        target.copyFrom(prep.board());
+        target.fillRandomRows(rnd, prep.candidates());
+    }
+
+    // số cá thể tốt nhất được giữ nguyên sang thế hệ sau
+    static int eliteCount(int size)
+    {
+        return size / 8;
+    }
+
+    /**
+     * One child of a population sorted by fitness, written over child: two
+     * tournament winners, crossed over and mutated. Only reads the parents,
+     * so callers on different threads may share this instance.
+     */
+    void offspring(Sudoku[] parents, Sudoku child, RandomGenerator rnd)
+    {
+        Sudoku p1 = tournament(parents, 5, rnd);
+        Sudoku p2 = tournament(parents, 5, rnd);
+
+        crossover(p1, p2, child, rnd);
+        mutate(child, rnd);
     }
 
-    private Sudoku tournament(List<Sudoku> pop, int k)
+    int populationSize() { return populationSize; }
+    int maxGenerations() { return maxGenerations; }
+
+    Sudoku tournament(Sudoku[] pop, int k, RandomGenerator rnd)
     {
         Sudoku best = null;
 
         for (int i = 0; i < k; i++)
         {
-            Sudoku cand = pop.get(rd.nextInt(pop.size()));
+            Sudoku cand = pop[rnd.nextInt(pop.length)];
 
             if (best == null || cand.conflicts() < best.conflicts())
             {
@@ -107,15 +380,16 @@ public class Genetic implements Solver
     }
 
     // Crossover: each row chooses from parent B or keeps parent A
-    private Sudoku crossover(Sudoku a, Sudoku b)
+    // (ghi đè lên child, không tạo bảng mới)
+    void crossover(Sudoku a, Sudoku b, Sudoku child, RandomGenerator rnd)
     {
-        Sudoku child = a.clone();
+        child.copyFrom(a);
 
-        for (int r = 0; r < Sudoku.SIZE; r++)
+        for (int r = 0; r < child.size(); r++)
         {
-            if (rd.nextBoolean())
+            if (rnd.nextBoolean())
             {
-                for (int c = 0; c < Sudoku.SIZE; c++)
+                for (int c = 0; c < child.size(); c++)
                 {
                     if (!child.isFixed(r, c))
                     {
@@ -124,38 +398,22 @@ public class Genetic implements Solver
                 }
             }
         }
-
-        return child;
     }
 
-    // Mutation: swap two non-fixed cells in a row
-    private void mutate(Sudoku s)
+    // Mutation: swap two distinct non-fixed cells in a row
+    // (cột tự do lấy từ bảng prepare(), không cấp phát)
+    void mutate(Sudoku s, RandomGenerator rnd)
     {
-        for (int r = 0; r < Sudoku.SIZE; r++)
+        for (int r = 0; r < s.size(); r++)
         {
-            if (rd.nextDouble() < mutationRate)
+            if (rnd.nextDouble() < mutationRate)
             {
-                List<Integer> idx = new ArrayList<>();
-
-                for (int c = 0; c < Sudoku.SIZE; c++)
+                if (moves.free(r).length >= 2)
                 {
-                    if (!s.isFixed(r, c))
-                    {
-                        idx.add(c);
-                    }
-                }
-
-                if (idx.size() >= 2)
-                {
-                    int i = idx.get(rd.nextInt(idx.size()));
-                    int j = idx.get(rd.nextInt(idx.size()));
-
-                    int temp = s.get(r, i);
-
-                    s.set(r, i, s.get(r, j));
-                    s.set(r, j, temp);
+                    int pair = moves.pair(r, rnd);
+                    s.swap(r, MoveTable.first(pair), MoveTable.second(pair));
                 }
             }
         }
     }
-}
\ No newline at end of file
+}
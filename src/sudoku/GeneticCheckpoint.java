@@ -0,0 +1,358 @@
+package sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+/**
+ * Saved state of a Genetic run: the puzzle's clues, the population at the
+ * start of a generation, the best board so far, the generation number and
+ * the seed the run's generator was reset to at that point, so a resumed
+ * run draws the same numbers the original would have.
+ *
+ * The file is a fixed header followed by one byte per cell:
+ *
+ *     int magic "SGC1", byte box, int population, int generation,
+ *     long seed, int best conflicts (-1 = none),
+ *     clues[cells], best[cells], population x individual[cells]
+ *
+ * Files are replaced atomically: written to a sibling ".tmp" file, forced
+ * to disk, then moved over the old one, so a preempted run leaves either
+ * the previous checkpoint or the new one, never half of one.
+ */
+public final class GeneticCheckpoint
+{
+    private static final int MAGIC = 0x53474331;   // "SGC1"
+    private static final int HEADER = 4 + 1 + 4 + 4 + 8 + 4;
+
+    private final int box;
+    private final int cells;
+    private final int populationSize;
+    private final int generation;
+    private final long seed;
+    private final int bestConflicts;
+    private final byte[] data;      // clues, best, rồi từng cá thể
+
+    private GeneticCheckpoint(ByteBuffer buf) throws IOException
+    {
+        if (buf.remaining() < HEADER || buf.getInt() != MAGIC)
+        {
+            throw new IOException("Not a Genetic checkpoint");
+        }
+
+        box = buf.get();
+
+        if (box < 1 || box > Geometry.MAX_BOX)
+        {
+            throw new IOException("Bad box size in checkpoint: " + box);
+        }
+
+        cells = box * box * box * box;
+        populationSize = buf.getInt();
+        generation = buf.getInt();
+        seed = buf.getLong();
+        bestConflicts = buf.getInt();
+
+        if (populationSize < 1 || buf.remaining() != (long) cells * (2 + populationSize))
+        {
+            throw new IOException("Truncated or corrupt checkpoint");
+        }
+
+        data = new byte[buf.remaining()];
+        buf.get(data);
+    }
+
+    /**
+     * Read a checkpoint written by Genetic.
+     */
+    public static GeneticCheckpoint read(Path file) throws IOException
+    {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            ByteBuffer buf = ByteBuffer.allocate((int) in.size());
+
+            while (buf.hasRemaining() && in.read(buf) >= 0)
+            {
+                // đọc tới hết tệp
+            }
+
+            buf.flip();
+            return new GeneticCheckpoint(buf);
+        }
+    }
+
+    /** Generation at which the population was saved. */
+    public int generation()
+    {
+        return generation;
+    }
+
+    public int populationSize()
+    {
+        return populationSize;
+    }
+
+    /** Conflicts of the best board found before the checkpoint, or -1 if none. */
+    public int bestConflicts()
+    {
+        return bestConflicts;
+    }
+
+    /** True if the checkpoint was taken on a run of this puzzle (same size and clues). */
+    public boolean matches(Sudoku puzzle)
+    {
+        if (puzzle.boxSize() != box)
+        {
+            return false;
+        }
+
+        int n = puzzle.size();
+
+        for (int i = 0; i < cells; i++)
+        {
+            int r = i / n;
+            int c = i % n;
+
+            if (data[i] != (puzzle.isFixed(r, c) ? puzzle.get(r, c) : 0))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    long seed()
+    {
+        return seed;
+    }
+
+    /** Overwrite best with the saved best board, laid over base. False if none was saved. */
+    boolean loadBest(Sudoku best, Sudoku base)
+    {
+        if (bestConflicts < 0)
+        {
+            return false;
+        }
+
+        load(cells, best, base);
+        return true;
+    }
+
+    /**
+     * Overwrite every board of out with the saved individuals, laid over
+     * base (the puzzle after Propagation); a larger array repeats them.
+     */
+    void loadPopulation(Sudoku[] out, Sudoku base)
+    {
+        for (int k = 0; k < out.length; k++)
+        {
+            load(2 * cells + (k % populationSize) * cells, out[k], base);
+        }
+    }
+
+    private void load(int offset, Sudoku target, Sudoku base)
+    {
+        int n = base.size();
+
+        target.copyFrom(base);
+
+        for (int i = 0; i < cells; i++)
+        {
+            int r = i / n;
+            int c = i % n;
+
+            if (!base.isFixed(r, c))
+            {
+                target.set(r, c, data[offset + i]);
+            }
+        }
+    }
+
+    // ghi trạng thái vào buf (từ vị trí 0), sẵn sàng để đọc ra
+    static void encode(ByteBuffer buf, Sudoku puzzle, Sudoku[] pop, Sudoku best, int generation, long seed)
+    {
+        int n = puzzle.size();
+
+        buf.clear();
+        buf.putInt(MAGIC);
+        buf.put((byte) puzzle.boxSize());
+        buf.putInt(pop.length);
+        buf.putInt(generation);
+        buf.putLong(seed);
+        buf.putInt(best == null ? -1 : best.conflicts());
+
+        for (int r = 0; r < n; r++)
+        {
+            for (int c = 0; c < n; c++)
+            {
+                buf.put((byte) (puzzle.isFixed(r, c) ? puzzle.get(r, c) : 0));
+            }
+        }
+
+        put(buf, best == null ? puzzle : best);
+
+        for (Sudoku s : pop)
+        {
+            put(buf, s);
+        }
+
+        buf.flip();
+    }
+
+    private static void put(ByteBuffer buf, Sudoku s)
+    {
+        int n = s.size();
+
+        for (int r = 0; r < n; r++)
+        {
+            for (int c = 0; c < n; c++)
+            {
+                buf.put((byte) s.get(r, c));
+            }
+        }
+    }
+
+    // ghi nguyên khối vào tệp tạm, đẩy xuống đĩa rồi đổi tên đè lên tệp cũ
+    static void write(ByteBuffer buf, Path file) throws IOException
+    {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            while (buf.hasRemaining())
+            {
+                out.write(buf);
+            }
+
+            out.force(false);
+        }
+
+        try
+        {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes checkpoints of one run on a background thread. offer() never
+     * blocks the search: if the previous checkpoint is still being written,
+     * the new one is skipped. One buffer is reused for every checkpoint; it
+     * is only filled while the writer is idle. The first failed write is
+     * kept and thrown by close(), with any later ones suppressed.
+     * Used from the solving thread only.
+     */
+    static final class Writer implements AutoCloseable
+    {
+        private final Path file;
+        private final ByteBuffer buffer;
+        private Future<?> writing;             // lần ghi nền gần nhất, null nếu chưa có
+        private volatile IOException failure;  // lần ghi lỗi đầu tiên
+        private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Writer(Path file, int box, int populationSize)
+        {
+            int cells = box * box * box * box;
+
+            this.file = file;
+            this.buffer = ByteBuffer.allocateDirect(HEADER + cells * (2 + populationSize));
+        }
+
+        /** Queue a checkpoint for writing; false if the writer was still busy. */
+        boolean offer(Sudoku puzzle, Sudoku[] pop, Sudoku best, int generation, long seed)
+        {
+            if (writing != null && !writing.isDone())
+            {
+                return false;
+            }
+
+            encode(buffer, puzzle, pop, best, generation, seed);
+            writing = io.submit(this::flush);
+            return true;
+        }
+
+        /** Wait for the background write, then write a checkpoint on the calling thread. */
+        void writeNow(Sudoku puzzle, Sudoku[] pop, Sudoku best, int generation, long seed)
+        {
+            if (!await())
+            {
+                return;   // bị ngắt: không ghi đè bộ đệm khi luồng nền có thể còn đọc
+            }
+
+            encode(buffer, puzzle, pop, best, generation, seed);
+            flush();
+        }
+
+        // chờ lần ghi nền xong; false nếu bị ngắt
+        private boolean await()
+        {
+            if (writing == null)
+            {
+                return true;
+            }
+
+            try
+            {
+                writing.get();
+                return true;
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            catch (ExecutionException e)
+            {
+                fail(new IOException("Checkpoint writer failed", e.getCause()));
+                return true;
+            }
+        }
+
+        private void flush()
+        {
+            try
+            {
+                write(buffer, file);
+            }
+            catch (IOException e)
+            {
+                fail(e);
+            }
+        }
+
+        private synchronized void fail(IOException e)
+        {
+            if (failure == null)
+            {
+                failure = e;
+            }
+            else
+            {
+                failure.addSuppressed(e);
+            }
+        }
+
+        /** Stop the writer; throws the first failed write, if any. */
+        @Override
+        public void close() throws IOException
+        {
+            io.shutdown();
+
+            if (failure != null)
+            {
+                throw failure;
+            }
+        }
+    }
+}
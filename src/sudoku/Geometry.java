@@ -0,0 +1,94 @@
+package sudoku;
+
+/**
+ * Cell and unit tables for a board of a given box size b: b*b digits per
+ * unit, b^4 cells, b*b rows, columns and blocks. Units are numbered rows
+ * first, then columns, then blocks. Tables are built once per size and
+ * shared by every board of that size.
+ */
+final class Geometry
+{
+    /** Largest supported box size: digit masks are longs with bit v for digit v. */
+    static final int MAX_BOX = 7;
+
+    private static final Geometry[] ALL = new Geometry[MAX_BOX + 1];
+
+    static
+    {
+        for (int b = 1; b <= MAX_BOX; b++)
+        {
+            ALL[b] = new Geometry(b);
+        }
+    }
+
+    final int box;
+    final int size;
+    final int cells;
+
+    // hàng, cột, khối của từng ô (đánh số từ 0 trong loại của nó)
+    final int[] row;
+    final int[] col;
+    final int[] block;
+
+    // chỉ số đơn vị của cột và khối trong dãy chung (sau các hàng)
+    final int[] colUnit;
+    final int[] blockUnit;
+
+    // các ô thuộc mỗi đơn vị
+    final int[][] unit;
+
+    private Geometry(int box)
+    {
+        this.box = box;
+        this.size = box * box;
+        this.cells = size * size;
+
+        row = new int[cells];
+        col = new int[cells];
+        block = new int[cells];
+        colUnit = new int[cells];
+        blockUnit = new int[cells];
+        unit = new int[3 * size][size];
+
+        for (int i = 0; i < cells; i++)
+        {
+            int r = i / size;
+            int c = i % size;
+            int b = (r / box) * box + c / box;
+
+            row[i] = r;
+            col[i] = c;
+            block[i] = b;
+            colUnit[i] = size + c;
+            blockUnit[i] = 2 * size + b;
+
+            unit[r][c] = i;
+            unit[size + c][r] = i;
+            unit[2 * size + b][(r % box) * box + c % box] = i;
+        }
+    }
+
+    static Geometry of(int box)
+    {
+        if (box < 1 || box > MAX_BOX)
+        {
+            throw new IllegalArgumentException("Box size must be 1.." + MAX_BOX + ", got " + box);
+        }
+
+        return ALL[box];
+    }
+
+    /** The box size whose board has the given number of cells, or -1. */
+    static int boxForCells(int cells)
+    {
+        for (int b = 1; b <= MAX_BOX; b++)
+        {
+            if (b * b * b * b == cells)
+            {
+                return b;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -5,92 +5,93 @@ import java.util.*;
 /**
  * Hill Climbing for Sudoku:
  * Start with random fill per row, then try swaps that reduce conflicts.
+ * Cells forced by the clues are filled in first (see Propagation) and never
+ * move; the random fill draws from each remaining cell's candidates.
+ * Swaps are drawn from a MoveTable built once per solve, so an iteration
+ * allocates nothing. Not thread-safe: use one instance per concurrent solve.
  */
 public class Hill_Climbing implements Solver
 {
-    private Random rd = new Random();
+    private SplittableRandom rd = new SplittableRandom();
     private int maxIterations = 200000;
+    private SolverListener listener = SolverListener.NONE;
 
     public Hill_Climbing()
     {
     }
 
-    @Override
-    public Sudoku solve(Sudoku puzzle /*, long timeLimitMillis*/)
+    public Hill_Climbing(long seed)
     {
-//        long endTime = System.currentTimeMillis() + timeLimitMillis;
+        this.rd = new SplittableRandom(seed);
+    }
 
-        Sudoku current = puzzle.clone();
-        current.fillRandomRows(rd);
+    @Override
+    public void setListener(SolverListener listener)
+    {
+        this.listener = listener;
+    }
 
-        int currConf = current.conflicts();
+    @Override
+    public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+    {
+        // điền trước các ô suy ra được; chỉ tìm kiếm trên các ô còn lại
+        Propagation prep = new Propagation(puzzle);
+        Sudoku current = prep.board().clone();
+        current.fillRandomRows(rd, prep.candidates());
 
-        if (currConf == 0)
-        {
-            return current;
-        }
+        MoveTable moves = new MoveTable(prep.board());
 
-        for (int it = 0; it < maxIterations; it++)
-        {
-//            if (System.currentTimeMillis() > endTime)
-//            {
-//                break;
-//            }
+        int currConf = current.conflicts();
+        int bestConf = currConf;
 
-            int r = rd.nextInt(Sudoku.SIZE);
+        listener.improved(currConf, 0);
 
-            List<Integer> idx = new ArrayList<>();
+        long start = System.nanoTime();
+        int proposed = 0;   // số bước đã đánh giá / đã nhận từ lần báo cáo trước
+        int accepted = 0;
+        int it = 0;
 
-            for (int c = 0; c < Sudoku.SIZE; c++)
-            {
-                if (!current.isFixed(r, c))
-                {
-                    idx.add(c);
-                }
-            }
-
-            if (idx.size() < 2)
+        for (; it < maxIterations && currConf > 0 && moves.hasMoves(); it++)
+        {
+            // kiểm tra hủy / hết giờ sau mỗi 1024 bước
+            if ((it & 1023) == 0 && cancel.isCancelled())
             {
-                continue;
+                break;
             }
 
-            int a = idx.get(rd.nextInt(idx.size()));
-            int b = idx.get(rd.nextInt(idx.size()));
-
-            if (a == b)
+            // báo cáo định kỳ, chỉ khi có người nghe
+            if ((it & 1023) == 0 && it > 0 && listener != SolverListener.NONE)
             {
-                continue;
+                listener.checkpoint(new Checkpoint("Hill_Climbing", it, System.nanoTime() - start, currConf, bestConf,
+                        (double) accepted / proposed, Double.NaN, Double.NaN));
+                proposed = 0;
+                accepted = 0;
             }
 
-            // attempt swap
-            swap(current, r, a, b);
+            int r = moves.randomRow(rd);
+            int pair = moves.pair(r, rd);
+            int a = MoveTable.first(pair);
+            int b = MoveTable.second(pair);
 
-            int newConf = current.conflicts();
+            // evaluate swap without applying it
+            int delta = current.swapDelta(r, a, b);
+            proposed++;
 
-            if (newConf <= currConf)
+            if (delta <= 0)
             {
-                currConf = newConf;
+                accepted++;
+                current.swap(r, a, b);
+                currConf += delta;
 
-                if (currConf == 0)
+                if (currConf < bestConf)
                 {
-                    return current;
+                    bestConf = currConf;
+                    listener.improved(currConf, it);
                 }
             }
-            else
-            {
-                // revert swap
-                swap(current, r, a, b);
-            }
         }
 
+        listener.finished(it);
         return (currConf == 0) ? current : null;
     }
-
-    private void swap(Sudoku s, int r, int c1, int c2)
-    {
-        int temp = s.get(r, c1);
-
-        s.set(r, c1, s.get(r, c2));
-        s.set(r, c2, temp);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+package sudoku;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Island-model Genetic Algorithm for Sudoku.
+ * Several sub-populations evolve on their own threads with Genetic's elite,
+ * tournament, crossover and mutation. Every few generations each island
+ * sends copies of its best individuals to the next island in a ring over a
+ * lock-free queue, and replaces its worst individuals with what it received.
+ * The first island to reach zero conflicts stops the others.
+ * Each island keeps its two generations in a Population, as Genetic does,
+ * and copies migrants over its worst boards, so only migration allocates.
+ * Each island draws from its own generator split from the seed; which
+ * migrants arrive when still depends on thread timing.
+ */
+public class Island_Genetic implements Solver
+{
+    private final Genetic template;      // tham số và toán tử của mỗi đảo
+    private final int islands;
+    private final int migrationInterval;
+    private final int migrants;
+    private SplittableRandom rd = new SplittableRandom();
+    private SolverListener listener = SolverListener.NONE;
+
+    public Island_Genetic()
+    {
+        this(new Genetic(150, 2000, 0.06), Math.max(2, Runtime.getRuntime().availableProcessors()), 50, 5);
+    }
+
+    public Island_Genetic(long seed)
+    {
+        this();
+        this.rd = new SplittableRandom(seed);
+    }
+
+    /**
+     * @param template          parameters of each island (population size is per island)
+     * @param islands           number of sub-populations, one thread each
+     * @param migrationInterval generations between two migrations
+     * @param migrants          individuals sent to the next island per migration
+     */
+    public Island_Genetic(Genetic template, int islands, int migrationInterval, int migrants)
+    {
+        this.template = template;
+        this.islands = Math.max(1, islands);
+        this.migrationInterval = Math.max(1, migrationInterval);
+        this.migrants = Math.max(0, Math.min(migrants, template.populationSize() / 2));
+    }
+
+    public Island_Genetic(Genetic template, int islands, int migrationInterval, int migrants, long seed)
+    {
+        this(template, islands, migrationInterval, migrants);
+        this.rd = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void setListener(SolverListener listener)
+    {
+        this.listener = listener;
+    }
+
+    @Override
+    public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+    {
+        List<Queue<Sudoku>> inbox = new ArrayList<>();
+
+        for (int i = 0; i < islands; i++)
+        {
+            inbox.add(new ConcurrentLinkedQueue<>());
+        }
+
+        template.prepare(puzzle);
+
+        Cancellation islandsDone = cancel.child();   // hủy khi một đảo đã giải xong
+        SolverListener progress = SolverListener.bestOf(listener);
+        AtomicLong generations = new AtomicLong();   // thế hệ xa nhất mà một đảo đạt tới
+        List<Future<Sudoku>> futures = new ArrayList<>();
+
+        for (int i = 0; i < islands; i++)
+        {
+            Queue<Sudoku> in = inbox.get(i);
+            Queue<Sudoku> out = inbox.get((i + 1) % islands);
+            SplittableRandom rnd = rd.split();   // mỗi đảo một luồng, tách từ seed của lần chạy
+
+            futures.add(Workers.POOL.submit(() -> evolve(in, out, islandsDone, progress, generations, rnd)));
+        }
+
+        Sudoku best = null;
+
+        try
+        {
+            for (Future<Sudoku> f : futures)
+            {
+                Sudoku s = f.get();
+
+                if (s != null && (best == null || s.conflicts() < best.conflicts()))
+                {
+                    best = s;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Island run failed", e.getCause());
+        }
+        finally
+        {
+            islandsDone.cancel();
+        }
+
+        listener.finished(generations.get());
+        return best;
+    }
+
+    // vòng tiến hóa của một đảo; trả về cá thể tốt nhất của đảo
+    private Sudoku evolve(Queue<Sudoku> in, Queue<Sudoku> out,
+                          Cancellation done, SolverListener progress, AtomicLong generations,
+                          SplittableRandom rnd)
+    {
+        int size = template.populationSize();
+        int elite = Genetic.eliteCount(size);
+
+        Population pop = template.population();
+
+        for (Sudoku s : pop.current())
+        {
+            template.individual(s, rnd);
+        }
+
+        Sudoku best = null;
+        long start = System.nanoTime();
+        int gen = 0;
+
+        for (; gen < template.maxGenerations(); gen++)
+        {
+            // đảo khác đã giải xong hoặc bị hủy
+            if (done.isCancelled())
+            {
+                break;
+            }
+
+            pop.sort();
+
+            if (gen > 0 && gen % migrationInterval == 0)
+            {
+                migrate(pop, in, out);
+            }
+
+            Sudoku[] parents = pop.current();
+
+            if (best == null || parents[0].conflicts() < best.conflicts())
+            {
+                best = parents[0].clone();
+                progress.improved(best.conflicts(), gen);
+
+                if (best.conflicts() == 0)
+                {
+                    done.cancel();
+                    break;
+                }
+            }
+
+            // mỗi đảo tự báo cáo, từ luồng của nó
+            if (listener != SolverListener.NONE)
+            {
+                listener.checkpoint(new Checkpoint("Island_Genetic", gen, System.nanoTime() - start,
+                        parents[0].conflicts(), best.conflicts(), Double.NaN, Double.NaN, Genetic.diversity(parents)));
+            }
+
+            // thế hệ sau ghi đè lên bảng của thế hệ trước nữa
+            Sudoku[] children = pop.next();
+
+            for (int i = 0; i < elite; i++)
+            {
+                children[i].copyFrom(parents[i]);
+            }
+
+            for (int i = elite; i < size; i++)
+            {
+                template.offspring(parents, children[i], rnd);
+            }
+
+            pop.swap();
+        }
+
+        generations.accumulateAndGet(gen, Math::max);
+        return best;
+    }
+
+    // gửi bản sao cá thể tốt nhất, chép di dân đè lên cá thể kém nhất
+    private void migrate(Population pop, Queue<Sudoku> in, Queue<Sudoku> out)
+    {
+        Sudoku[] current = pop.current();
+
+        for (int i = 0; i < migrants; i++)
+        {
+            out.offer(current[i].clone());
+        }
+
+        int slot = current.length - 1;
+        Sudoku m;
+
+        while (slot >= current.length - migrants && (m = in.poll()) != null)
+        {
+            current[slot--].copyFrom(m);
+        }
+
+        pop.sort();
+    }
+}
@@ -0,0 +1,257 @@
+package sudoku;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.function.IntSupplier;
+
+/**
+ * Microbenchmarks for the hot kernels of the solvers.
+ * Each kernel runs timed warmup and measurement rounds on the current thread.
+ * Reported per kernel: time per operation, throughput, bytes allocated per
+ * operation and allocation rate (from the thread allocation counter), and
+ * GC count and time during measurement. The "local.step" kernel is one
+ * full Hill_Climbing / Simulated_Annealing iteration (move draw, delta,
+ * swap) and should report 0 B/op, as should the genetic.* kernels, which
+ * write into preallocated boards. The batch.* kernels recount the conflicts
+ * of a whole population with BatchConflicts, after checking that it agrees
+ * with Sudoku.conflicts() on random boards of every size.
+ *
+ * Usage: java sudoku.MicroBenchmark [name-filter]
+ */
+public class MicroBenchmark
+{
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 5;
+    private static final long ROUND_NANOS = 500_000_000L;
+
+    // puzzle from the classic "hardest" lists, 17 clues
+    private static final String PUZZLE =
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    private static volatile int sink;   // chống JIT loại bỏ kết quả
+
+    public static void main(String[] args)
+    {
+        String filter = args.length > 0 ? args[0] : "";
+        Map<String, IntSupplier> kernels = kernels();
+
+        System.out.printf("%-22s %12s %10s %14s %12s %12s %6s %8s%n",
+                "kernel", "ns/op", "+-", "ops/s", "B/op", "MB/s alloc", "gc", "gc ms");
+
+        for (Map.Entry<String, IntSupplier> k : kernels.entrySet())
+        {
+            if (k.getKey().contains(filter))
+            {
+                run(k.getKey(), k.getValue());
+            }
+        }
+    }
+
+    static Map<String, IntSupplier> kernels()
+    {
+        Random rnd = new Random(42);
+        SplittableRandom split = new SplittableRandom(42);
+        Sudoku puzzle = Sudoku.parse(PUZZLE);
+
+        Sudoku board = puzzle.clone();
+        board.fillRandomRows(rnd);
+
+        MoveTable moves = new MoveTable(puzzle);
+
+        Genetic gene = new Genetic();
+        gene.prepare(puzzle);
+        Population population = gene.population();
+
+        for (Sudoku s : population.current())
+        {
+            gene.individual(s, split);
+        }
+
+        population.sort();
+        Sudoku[] pop = population.current();
+        Sudoku child = puzzle.clone();
+
+        // bộ đếm theo lô phải khớp với bản tuần tự và bộ đếm của từng bảng, ở mọi cỡ
+        for (int box = 2; box <= 5; box++)
+        {
+            Sudoku[] boards = new Sudoku[37];
+
+            for (int i = 0; i < boards.length; i++)
+            {
+                boards[i] = new Sudoku(box);
+                boards[i].fillRandomRows(rnd);
+
+                // vài bảng có ô trống
+                if (i % 3 == 0)
+                {
+                    boards[i].set(i % boards[i].size(), (i / 3) % boards[i].size(), 0);
+                }
+            }
+
+            if (!BatchConflicts.matches(boards) || !BatchConflicts.matches(Arrays.copyOf(boards, 3)))
+            {
+                throw new IllegalStateException("BatchConflicts disagrees with Sudoku.conflicts() for box " + box);
+            }
+        }
+
+        BatchConflicts batch = new BatchConflicts(puzzle.boxSize(), pop.length);
+        int[] batchOut = new int[pop.length];
+        batch.load(pop, pop.length);
+
+        Map<String, IntSupplier> kernels = new LinkedHashMap<>();
+
+        kernels.put("conflicts", board::conflicts);
+        kernels.put("clone", () -> board.clone().conflicts());
+        kernels.put("clone+fillRandomRows", () -> {
+            Sudoku s = puzzle.clone();
+            s.fillRandomRows(rnd);
+            return s.conflicts();
+        });
+        // hai cột khác nhau như bước thật của các bộ giải
+        kernels.put("swapDelta", () -> {
+            int r = moves.randomRow(split);
+            int pair = moves.pair(r, split);
+            return board.swapDelta(r, MoveTable.first(pair), MoveTable.second(pair));
+        });
+        kernels.put("swap", () -> {
+            int r = moves.randomRow(split);
+            int pair = moves.pair(r, split);
+            board.swap(r, MoveTable.first(pair), MoveTable.second(pair));
+            return board.conflicts();
+        });
+        kernels.put("local.step", () -> {
+            int r = moves.randomRow(split);
+            int pair = moves.pair(r, split);
+            int a = MoveTable.first(pair);
+            int b = MoveTable.second(pair);
+            int delta = board.swapDelta(r, a, b);
+
+            if (delta <= 0)
+            {
+                board.swap(r, a, b);
+            }
+
+            return delta;
+        });
+        kernels.put("genetic.tournament", () -> gene.tournament(pop, 5, split).conflicts());
+        kernels.put("genetic.crossover", () -> {
+            gene.crossover(pop[0], pop[1], child, split);
+            return child.conflicts();
+        });
+        kernels.put("genetic.offspring", () -> {
+            gene.offspring(pop, child, split);
+            return child.conflicts();
+        });
+        kernels.put("genetic.sort", () -> {
+            population.sort();
+            return population.current()[0].conflicts();
+        });
+        kernels.put("batch.evaluate x" + pop.length, () -> {
+            batch.evaluate(batchOut);
+            return batchOut[0];
+        });
+        kernels.put("batch.scalar x" + pop.length, () -> {
+            batch.evaluateScalar(batchOut);
+            return batchOut[0];
+        });
+        kernels.put("batch.load x" + pop.length, () -> {
+            batch.load(pop, pop.length);
+            return batch.size();
+        });
+        kernels.put("genetic.mutate", () -> {
+            gene.mutate(board, split);
+            return board.conflicts();
+        });
+
+        return kernels;
+    }
+
+    private static void run(String name, IntSupplier kernel)
+    {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+        {
+            round(kernel);
+        }
+
+        double[] nsPerOp = new double[MEASURE_ROUNDS];
+        long ops = 0;
+        long nanos = 0;
+
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        long allocated = threads.getThreadAllocatedBytes(tid);
+
+        for (int i = 0; i < MEASURE_ROUNDS; i++)
+        {
+            long[] r = round(kernel);
+            ops += r[0];
+            nanos += r[1];
+            nsPerOp[i] = (double) r[1] / r[0];
+        }
+
+        allocated = threads.getThreadAllocatedBytes(tid) - allocated;
+        gcCount = gcCount() - gcCount;
+        gcTime = gcTime() - gcTime;
+
+        double mean = Arrays.stream(nsPerOp).average().orElse(0);
+        double sd = Math.sqrt(Arrays.stream(nsPerOp).map(x -> (x - mean) * (x - mean)).sum() / MEASURE_ROUNDS);
+        double seconds = nanos / 1e9;
+
+        System.out.printf("%-22s %12.1f %10.1f %14.0f %12.1f %12.1f %6d %8d%n",
+                name, mean, sd, ops / seconds, (double) allocated / ops,
+                allocated / seconds / (1024 * 1024), gcCount, gcTime);
+    }
+
+    // chạy kernel trong một vòng đo; trả về {số lần, số nano giây}
+    private static long[] round(IntSupplier kernel)
+    {
+        long ops = 0;
+        int acc = 0;
+        long start = System.nanoTime();
+        long end = start + ROUND_NANOS;
+        long now;
+
+        do
+        {
+            for (int i = 0; i < 1024; i++)
+            {
+                acc += kernel.getAsInt();
+            }
+
+            ops += 1024;
+            now = System.nanoTime();
+        }
+        while (now < end);
+
+        sink = acc;
+        return new long[] { ops, now - start };
+    }
+
+    private static long gcCount()
+    {
+        long n = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            n += Math.max(0, gc.getCollectionCount());
+        }
+
+        return n;
+    }
+
+    private static long gcTime()
+    {
+        long n = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            n += Math.max(0, gc.getCollectionTime());
+        }
+
+        return n;
+    }
+}
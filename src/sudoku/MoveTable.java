@@ -0,0 +1,95 @@
+package sudoku;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Free (non-fixed) columns of every row of a puzzle, computed once per
+ * solve so that picking a swap allocates nothing; pair() draws the two
+ * columns of a swap. Only rows with at least two free cells can be drawn.
+ * Read-only after construction, so threads may share one table.
+ */
+final class MoveTable
+{
+    private final int[][] free;    // free[r] = các cột không cố định của hàng r
+    private final int[] rows;      // các hàng có ít nhất 2 ô tự do
+
+    MoveTable(Sudoku puzzle)
+    {
+        int n = puzzle.size();
+        int[] movable = new int[n];
+        int count = 0;
+
+        free = new int[n][];
+
+        for (int r = 0; r < n; r++)
+        {
+            int[] cols = new int[n];
+            int k = 0;
+
+            for (int c = 0; c < n; c++)
+            {
+                if (!puzzle.isFixed(r, c))
+                {
+                    cols[k++] = c;
+                }
+            }
+
+            free[r] = Arrays.copyOf(cols, k);
+
+            if (k >= 2)
+            {
+                movable[count++] = r;
+            }
+        }
+
+        rows = Arrays.copyOf(movable, count);
+    }
+
+    /** False if no row has two free cells, i.e. no swap is possible. */
+    boolean hasMoves()
+    {
+        return rows.length > 0;
+    }
+
+    /** A row with at least two free cells, uniformly. */
+    int randomRow(RandomGenerator rnd)
+    {
+        return rows[rnd.nextInt(rows.length)];
+    }
+
+    /**
+     * Two distinct free columns of row r (which must have at least two),
+     * drawn uniformly without rejection and packed into one int: read
+     * them with first() and second().
+     */
+    int pair(int r, RandomGenerator rnd)
+    {
+        int[] cols = free[r];
+        int i = rnd.nextInt(cols.length);
+        int j = rnd.nextInt(cols.length - 1);
+
+        if (j >= i)
+        {
+            j++;
+        }
+
+        return cols[i] << 16 | cols[j];
+    }
+
+    static int first(int pair)
+    {
+        return pair >>> 16;
+    }
+
+    static int second(int pair)
+    {
+        return pair & 0xFFFF;
+    }
+
+    /** Free columns of row r, in increasing order. Do not modify. */
+    int[] free(int r)
+    {
+        return free[r];
+    }
+}
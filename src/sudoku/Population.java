@@ -0,0 +1,87 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * The two generations of a genetic population. Selection reads current()
+ * while offspring are written in place into the boards of next(); swap()
+ * then exchanges the roles. Both are allocated once per solve, so a
+ * generation creates no boards.
+ *
+ * sort() orders current() by conflicts, best first and stable, with a
+ * counting sort into a preallocated scratch array (conflict counts are
+ * small integers) instead of the merge buffers of Arrays.sort.
+ */
+final class Population
+{
+    private Sudoku[] current;
+    private Sudoku[] next;
+    private Sudoku[] scratch;
+    private int[] counts = new int[64];    // counts[v]: vị trí đầu của nhóm v xung đột
+
+    /**
+     * @param current the first generation, already filled
+     * @param next    boards of the same size to write the second into
+     */
+    Population(Sudoku[] current, Sudoku[] next)
+    {
+        this.current = current;
+        this.next = next;
+        this.scratch = new Sudoku[current.length];
+    }
+
+    Sudoku[] current()
+    {
+        return current;
+    }
+
+    Sudoku[] next()
+    {
+        return next;
+    }
+
+    /** next() becomes current(); the old current() is reused for the generation after. */
+    void swap()
+    {
+        Sudoku[] t = current;
+        current = next;
+        next = t;
+    }
+
+    /** Stable sort of current() by conflicts, fewest first. */
+    void sort()
+    {
+        int max = 0;
+
+        for (Sudoku s : current)
+        {
+            max = Math.max(max, s.conflicts());
+        }
+
+        if (counts.length < max + 2)
+        {
+            counts = new int[Math.max(max + 2, 2 * counts.length)];
+        }
+
+        Arrays.fill(counts, 0, max + 2, 0);
+
+        for (Sudoku s : current)
+        {
+            counts[s.conflicts() + 1]++;
+        }
+
+        for (int v = 1; v <= max + 1; v++)
+        {
+            counts[v] += counts[v - 1];
+        }
+
+        for (Sudoku s : current)
+        {
+            scratch[counts[s.conflicts()]++] = s;
+        }
+
+        Sudoku[] t = current;
+        current = scratch;
+        scratch = t;
+    }
+}
@@ -0,0 +1,118 @@
+package sudoku;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Portfolio solver: races independently seeded Hill_Climbing,
+ * Simulated_Annealing and Genetic runs on separate threads.
+ * The first run that reaches zero conflicts wins and the others are cancelled.
+ */
+public class Portfolio implements Solver
+{
+    private final int runs;
+    private final Random seeds = new Random();
+    private SolverListener listener = SolverListener.NONE;
+
+    public Portfolio()
+    {
+        // ít nhất một lượt cho mỗi thuật toán
+        this(Math.max(3, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public Portfolio(int runs)
+    {
+        this.runs = Math.max(1, runs);
+    }
+
+    @Override
+    public void setListener(SolverListener listener)
+    {
+        this.listener = listener;
+    }
+
+    @Override
+    public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+    {
+        CompletionService<Sudoku> race = new ExecutorCompletionService<>(Workers.POOL);
+        Cancellation losers = cancel.child();   // hủy khi đã có người thắng
+        SolverListener progress = SolverListener.bestOf(listener);
+        Map<Future<Sudoku>, Integer> index = new HashMap<>();
+        long[] steps = new long[runs];
+        long used = 0;
+
+        try
+        {
+            for (int i = 0; i < runs; i++)
+            {
+                int run = i;
+                Solver engine = engine(i, seeds.nextLong());
+
+                engine.setListener(new SolverListener()
+                {
+                    @Override
+                    public void improved(int conflicts, long step)
+                    {
+                        progress.improved(conflicts, step);
+                    }
+
+                    @Override
+                    public void finished(long n)
+                    {
+                        steps[run] = n;
+                    }
+
+                    @Override
+                    public void checkpoint(Checkpoint c)
+                    {
+                        listener.checkpoint(c);
+                    }
+                });
+
+                index.put(race.submit(() -> engine.solve(puzzle.clone(), losers)), run);
+            }
+
+            for (int i = 0; i < runs; i++)
+            {
+                Future<Sudoku> done = race.take();
+                Sudoku result = done.get();
+                int run = index.get(done);
+
+                used = Math.max(used, steps[run]);
+
+                if (result != null && result.conflicts() == 0)
+                {
+                    used = steps[run];   // số bước của lượt thắng
+                    return result;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Portfolio run failed", e.getCause());
+        }
+        finally
+        {
+            // các lượt chạy còn lại dừng ở lần kiểm tra kế tiếp
+            losers.cancel();
+            listener.finished(used);
+        }
+
+        return null;
+    }
+
+    // xoay vòng các thuật toán để danh mục đa dạng
+    private Solver engine(int i, long seed)
+    {
+        switch (i % 3)
+        {
+            case 0:  return new Simulated_Annealing(seed);
+            case 1:  return new Hill_Climbing(seed);
+            default: return new Genetic(seed);
+        }
+    }
+}
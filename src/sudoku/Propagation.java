@@ -0,0 +1,178 @@
+package sudoku;
+
+/**
+ * Constraint propagation run by the stochastic solvers before they search.
+ * Starting from the fixed cells, naked singles (a cell with one candidate
+ * left) and hidden singles (a digit with one place left in a row, column or
+ * block) are filled in until neither applies. The forced cells become fixed
+ * in board(), so the solver never moves them, and every other cell keeps
+ * the set of digits its row, column and block still allow, which
+ * Sudoku.fillRandomRows(rnd, candidates) draws from.
+ *
+ * If the fixed cells contradict each other, or propagation runs into a cell
+ * or a unit with no candidate, nothing is deduced and every digit is a
+ * candidate: the solver then searches the puzzle as given.
+ * Read-only after construction, so threads may share one instance.
+ */
+final class Propagation
+{
+    private final Sudoku board;        // đề + các ô suy ra được (cố định)
+    private final long[] candidates;   // bit v của ô i = chữ số v còn hợp lệ
+    private final int forced;          // số ô suy ra được
+
+    Propagation(Sudoku puzzle)
+    {
+        Geometry g = Geometry.of(puzzle.boxSize());
+        int n = g.size;
+        long all = ((1L << n) - 1) << 1;
+
+        int[] value = new int[g.cells];
+        long[] used = new long[3 * n];      // chữ số đã đặt trong từng đơn vị
+        boolean ok = true;
+
+        for (int i = 0; i < g.cells && ok; i++)
+        {
+            int r = g.row[i];
+            int c = g.col[i];
+
+            if (puzzle.isFixed(r, c) && puzzle.get(r, c) != 0)
+            {
+                ok = place(g, value, used, i, puzzle.get(r, c));
+            }
+        }
+
+        int count = 0;
+        boolean changed = ok;
+
+        while (changed && ok)
+        {
+            changed = false;
+
+            // ô chỉ còn một ứng viên
+            for (int i = 0; i < g.cells && ok; i++)
+            {
+                if (value[i] == 0)
+                {
+                    long cand = all & ~mask(g, used, i);
+
+                    if (cand == 0)
+                    {
+                        ok = false;
+                    }
+                    else if (Long.bitCount(cand) == 1)
+                    {
+                        place(g, value, used, i, Long.numberOfTrailingZeros(cand));
+                        count++;
+                        changed = true;
+                    }
+                }
+            }
+
+            // chữ số chỉ còn một chỗ trong một đơn vị
+            for (int u = 0; u < 3 * n && ok; u++)
+            {
+                for (int v = 1; v <= n && ok; v++)
+                {
+                    if ((used[u] & (1L << v)) != 0)
+                    {
+                        continue;
+                    }
+
+                    int at = -1;
+                    int places = 0;
+
+                    for (int i : g.unit[u])
+                    {
+                        if (value[i] == 0 && (mask(g, used, i) & (1L << v)) == 0)
+                        {
+                            at = i;
+                            places++;
+                        }
+                    }
+
+                    if (places == 0)
+                    {
+                        ok = false;
+                    }
+                    else if (places == 1)
+                    {
+                        place(g, value, used, at, v);
+                        count++;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        board = puzzle.clone();
+        candidates = new long[g.cells];
+
+        for (int i = 0; i < g.cells; i++)
+        {
+            int r = g.row[i];
+            int c = g.col[i];
+
+            if (!ok)
+            {
+                candidates[i] = puzzle.isFixed(r, c) && puzzle.get(r, c) != 0 ? 1L << puzzle.get(r, c) : all;
+            }
+            else if (value[i] != 0)
+            {
+                candidates[i] = 1L << value[i];
+
+                if (!puzzle.isFixed(r, c))
+                {
+                    board.set(r, c, value[i]);
+                    board.setFixed(r, c, true);
+                }
+            }
+            else
+            {
+                candidates[i] = all & ~mask(g, used, i);
+            }
+        }
+
+        forced = ok ? count : 0;
+    }
+
+    // chữ số đã có trong hàng, cột và khối của ô i
+    private static long mask(Geometry g, long[] used, int i)
+    {
+        return used[g.row[i]] | used[g.colUnit[i]] | used[g.blockUnit[i]];
+    }
+
+    // đặt v vào ô i; false nếu v đã có trong một đơn vị của ô
+    private static boolean place(Geometry g, int[] value, long[] used, int i, int v)
+    {
+        long bit = 1L << v;
+
+        if ((mask(g, used, i) & bit) != 0)
+        {
+            return false;
+        }
+
+        value[i] = v;
+        used[g.row[i]] |= bit;
+        used[g.colUnit[i]] |= bit;
+        used[g.blockUnit[i]] |= bit;
+        return true;
+    }
+
+    /** The puzzle with every forced cell filled in and fixed. Do not modify; clone it. */
+    Sudoku board()
+    {
+        return board;
+    }
+
+    /** Candidate digits of cell r * size + c as a bit mask (bit v for digit v). Do not modify. */
+    long[] candidates()
+    {
+        return candidates;
+    }
+
+    /** Number of cells filled in by propagation. */
+    int forced()
+    {
+        return forced;
+    }
+}
@@ -0,0 +1,220 @@
+package sudoku;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * Puzzle generator.
+ * Each full grid starts from a new seed grid: the diagonal boxes (which
+ * share no row, column or box) get random permutations and Backtracking
+ * completes the rest, so puzzles come from many different solutions. The
+ * seed is then shuffled by transforms that keep a grid valid: relabelling
+ * digits, shuffling rows inside a band, columns inside a stack, the bands,
+ * the stacks, and transposing. Should a completion outrun its time limit,
+ * a fixed pattern grid is used as the seed instead. Clues are then
+ * removed in random order, each removal kept only if the puzzle still has a
+ * unique solution, until the difficulty's clue target is reached.
+ * A uniqueness check that runs out of its search budget counts as not
+ * unique, so the clue stays; on 16x16 and larger boards a few removals
+ * would otherwise take minutes to decide. The budget shrinks as boards grow,
+ * since each search node costs time proportional to the number of cells.
+ */
+public class PuzzleGenerator
+{
+    // ngân sách cho một lần kiểm tra: số nút × số ô (khoảng 3900 nút với 9x9)
+    private static final long SEARCH_BUDGET = 312_500;
+
+    // thời gian tối đa để hoàn thành một lưới gốc (thường vài chục ms kể cả 25x25)
+    private static final Duration SEED_TIME = Duration.ofSeconds(2);
+
+    private final RandomGenerator rnd;
+    private final int box;
+    private final int n;
+
+    private final Backtracking exact = new Backtracking();
+
+    public PuzzleGenerator()
+    {
+        this(new SplittableRandom());
+    }
+
+    public PuzzleGenerator(RandomGenerator rnd)
+    {
+        this(rnd, 3);
+    }
+
+    /**
+     * Generator for boards of the given box size (3 for 9x9, 4 for 16x16, ...).
+     */
+    public PuzzleGenerator(RandomGenerator rnd, int box)
+    {
+        this.rnd = rnd;
+        this.box = box;
+        this.n = box * box;
+    }
+
+    /**
+     * A new puzzle with a unique solution; its clues are fixed cells.
+     */
+    public Sudoku generate(Difficulty difficulty)
+    {
+        return generate(difficulty.targetClues(n * n));
+    }
+
+    /**
+     * A new puzzle with a unique solution and, if uniqueness allows it,
+     * target clues.
+     */
+    public Sudoku generate(int target)
+    {
+        int[][] grid = fullGrid();
+        Sudoku puzzle = new Sudoku(grid);
+
+        int[] order = shuffled(n * n);
+        int clues = n * n;
+
+        for (int i = 0; i < order.length && clues > target; i++)
+        {
+            int r = order[i] / n;
+            int c = order[i] % n;
+            int v = puzzle.get(r, c);
+
+            puzzle.set(r, c, 0);
+            puzzle.setFixed(r, c, false);
+
+            if (isUnique(puzzle))
+            {
+                clues--;
+            }
+            else
+            {
+                puzzle.set(r, c, v);
+                puzzle.setFixed(r, c, true);
+            }
+        }
+
+        return puzzle;
+    }
+
+    /**
+     * True if the fixed cells of the puzzle admit exactly one solution.
+     * A puzzle too hard to decide within the search budget counts as not
+     * unique.
+     */
+    public boolean isUnique(Sudoku puzzle)
+    {
+        return exact.countSolutions(puzzle, 2, SEARCH_BUDGET / (n * n)) == 1;
+    }
+
+    // lưới đầy đủ ngẫu nhiên từ lưới gốc qua các phép biến đổi giữ tính hợp lệ
+    int[][] fullGrid()
+    {
+        int[][] seed = seedGrid();
+        int[] digit = shuffled(n);          // đổi nhãn chữ số
+        int[] rows = bandOrder();
+        int[] cols = bandOrder();
+        boolean transpose = rnd.nextBoolean();
+
+        int[][] grid = new int[n][n];
+
+        for (int r = 0; r < n; r++)
+        {
+            for (int c = 0; c < n; c++)
+            {
+                int sr = rows[r];
+                int sc = cols[c];
+
+                if (transpose)
+                {
+                    int t = sr;
+                    sr = sc;
+                    sc = t;
+                }
+
+                grid[r][c] = digit[seed[sr][sc] - 1] + 1;
+            }
+        }
+
+        return grid;
+    }
+
+    // lưới gốc mới: các khối trên đường chéo hoán vị ngẫu nhiên, Backtracking điền phần còn lại
+    private int[][] seedGrid()
+    {
+        Sudoku start = new Sudoku(box);
+
+        for (int b = 0; b < box; b++)
+        {
+            int[] digits = shuffled(n);
+
+            for (int i = 0; i < n; i++)
+            {
+                int r = b * box + i / box;
+                int c = b * box + i % box;
+
+                start.set(r, c, digits[i] + 1);
+                start.setFixed(r, c, true);
+            }
+        }
+
+        Sudoku full = exact.solve(start, Cancellation.after(SEED_TIME));
+
+        if (full != null)
+        {
+            return full.getGridCopy();
+        }
+
+        // dự phòng: mỗi hàng dịch box ô, mỗi băng dịch thêm 1 ô
+        int[][] pattern = new int[n][n];
+
+        for (int r = 0; r < n; r++)
+        {
+            for (int c = 0; c < n; c++)
+            {
+                pattern[r][c] = (r * box + r / box + c) % n + 1;
+            }
+        }
+
+        return pattern;
+    }
+
+    // thứ tự hàng (hoặc cột): trộn các băng, rồi trộn các hàng trong từng băng
+    private int[] bandOrder()
+    {
+        int[] bands = shuffled(box);
+        int[] order = new int[n];
+
+        for (int b = 0; b < box; b++)
+        {
+            int[] inner = shuffled(box);
+
+            for (int i = 0; i < box; i++)
+            {
+                order[b * box + i] = bands[b] * box + inner[i];
+            }
+        }
+
+        return order;
+    }
+
+    private int[] shuffled(int n)
+    {
+        int[] a = new int[n];
+
+        for (int i = 0; i < n; i++)
+        {
+            a[i] = i;
+        }
+
+        for (int i = n - 1; i > 0; i--)
+        {
+            int j = rnd.nextInt(i + 1);
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+
+        return a;
+    }
+}
@@ -0,0 +1,84 @@
+package sudoku;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Ready-made puzzles per difficulty, refilled by background threads so that
+ * taking one is constant time. If a queue is empty (e.g. right at start-up),
+ * take() generates a puzzle on the calling thread instead of waiting.
+ * Each pool starts one daemon filler thread per difficulty when it is
+ * created; close() stops them.
+ */
+public class PuzzlePool implements AutoCloseable
+{
+    private final Map<Difficulty, BlockingQueue<Sudoku>> ready = new EnumMap<>(Difficulty.class);
+    private final List<Thread> fillers = new ArrayList<>();
+
+    // tạo pool dùng chung ở lần gọi shared() đầu tiên (nạp lớp lười)
+    private static final class Shared
+    {
+        static final PuzzlePool POOL = new PuzzlePool(16);
+    }
+
+    public PuzzlePool(int perDifficulty)
+    {
+        for (Difficulty d : Difficulty.values())
+        {
+            BlockingQueue<Sudoku> queue = new ArrayBlockingQueue<>(perDifficulty);
+            ready.put(d, queue);
+
+            Thread filler = new Thread(() -> fill(d, queue), "puzzle-pool-" + d.name().toLowerCase(Locale.ROOT));
+            filler.setDaemon(true);
+            filler.setPriority(Thread.MIN_PRIORITY);
+            filler.start();
+            fillers.add(filler);
+        }
+    }
+
+    /**
+     * The pool used by the GUI, created with its filler threads on the
+     * first call.
+     */
+    public static PuzzlePool shared()
+    {
+        return Shared.POOL;
+    }
+
+    public Sudoku take(Difficulty difficulty)
+    {
+        Sudoku puzzle = ready.get(difficulty).poll();
+        return puzzle != null ? puzzle : new PuzzleGenerator().generate(difficulty);
+    }
+
+    /**
+     * Stop the filler threads. Puzzles already queued can still be taken;
+     * after that, take() generates on the calling thread.
+     */
+    @Override
+    public void close()
+    {
+        for (Thread filler : fillers)
+        {
+            filler.interrupt();
+        }
+    }
+
+    // luồng nền: tạo đề cho tới khi hàng đợi đầy rồi chờ có chỗ trống
+    private static void fill(Difficulty difficulty, BlockingQueue<Sudoku> queue)
+    {
+        PuzzleGenerator generator = new PuzzleGenerator();
+
+        try
+        {
+            while (true)
+            {
+                queue.put(generator.generate(difficulty));
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
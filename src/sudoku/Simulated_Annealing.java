@@ -5,111 +5,221 @@ import java.util.*;
 /**
  * Simulated Annealing for Sudoku.
  * Similar to hill climbing but sometimes accepts worse solutions.
+ * Like Hill_Climbing it starts from the puzzle after Propagation.
+ * Swaps are drawn from a MoveTable built once per solve, so an iteration
+ * allocates nothing. Not thread-safe: use one instance per concurrent solve.
+ *
+ * By default the temperature falls geometrically from startTemp to endTemp
+ * over maxIterations. In adaptive mode the start temperature is the
+ * standard deviation of the deltas of a sample of random swaps; then every
+ * 1024 steps the temperature is lowered or raised to follow a target
+ * acceptance rate for uphill moves, which itself decays over the run; and
+ * when the best board has not improved for a while the temperature is
+ * raised back towards the start (reheating). If the sample has no spread
+ * (all swaps neutral), the fixed schedule's constants are used instead.
  */
 public class Simulated_Annealing implements Solver
 {
-    private Random rd = new Random();
-    private int maxIterations = 200000;
-    private double startTemp = 5.0;
-    private double endTemp = 0.001;
+    private SplittableRandom rd = new SplittableRandom();
+    // giá trị mặc định, cũng là giá trị dự phòng của SolverProfile
+    static final int MAX_ITERATIONS = 200000;
+    static final double START_TEMP = 5.0;
+    static final double END_TEMP = 0.001;
+
+    private int maxIterations = MAX_ITERATIONS;
+    private SolverListener listener = SolverListener.NONE;
+    private double startTemp = START_TEMP;
+    private double endTemp = END_TEMP;
+
+    // chế độ thích nghi
+    private boolean adaptive;
+    private int samples = 200;                // số phép đổi thử để ước lượng nhiệt độ đầu
+    private double startAcceptance = 0.5;     // tỉ lệ nhận bước đi lên mong muốn, đầu và cuối
+    private double endAcceptance = 0.005;
+    private double cooling = 0.9;             // hệ số chỉnh nhiệt độ mỗi 1024 bước
+    private int stallLimit = 20000;           // số bước không cải thiện trước khi hâm nóng
+    private double reheat = 0.5;              // hâm nóng về reheat * nhiệt độ đầu
 
     public Simulated_Annealing() { }
 
-    @Override
-    public Sudoku solve(Sudoku puzzle /*, long timeLimitMillis*/)
+    public Simulated_Annealing(long seed)
     {
-//        long endTime = System.currentTimeMillis() + timeLimitMillis;
+        this.rd = new SplittableRandom(seed);
+    }
 
-        Sudoku current = puzzle.clone();
-        current.fillRandomRows(rd);
+    /**
+     * @param adaptive calibrate, steer and reheat the temperature instead
+     *                 of following the fixed geometric schedule
+     */
+    public Simulated_Annealing(long seed, boolean adaptive)
+    {
+        this(seed);
+        this.adaptive = adaptive;
+    }
 
-        int currConf = current.conflicts();
+    /**
+     * Fixed geometric schedule with the given budget and temperatures.
+     */
+    public Simulated_Annealing(long seed, int maxIterations, double startTemp, double endTemp)
+    {
+        this(seed);
+        this.maxIterations = maxIterations;
+        this.startTemp = startTemp;
+        this.endTemp = endTemp;
+    }
 
-        if (currConf == 0)
-        {
-            return current;
-        }
+    @Override
+    public void setListener(SolverListener listener)
+    {
+        this.listener = listener;
+    }
 
-        for (int it = 0; it < maxIterations; it++)
-        {
-//            if (System.currentTimeMillis() > endTime)
-//            {
-//                break;
-//            }
+    @Override
+    public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+    {
+        // điền trước các ô suy ra được; chỉ tìm kiếm trên các ô còn lại
+        Propagation prep = new Propagation(puzzle);
+        Sudoku current = prep.board().clone();
+        current.fillRandomRows(rd, prep.candidates());
 
-            double t = temperature(it);
+        MoveTable moves = new MoveTable(prep.board());
 
-            // pick random row to modify
-            int r = rd.nextInt(Sudoku.SIZE);
+        int currConf = current.conflicts();
+        int bestConf = currConf;
+
+        listener.improved(currConf, 0);
+
+        double t0 = adaptive && moves.hasMoves() ? calibrate(current, moves) : startTemp;
+        double t = t0;
 
-            List<Integer> idx = new ArrayList<>();
+        long start = System.nanoTime();
+        int proposed = 0;   // số bước đã đánh giá / đã nhận từ lần báo cáo trước
+        int accepted = 0;
+        int uphill = 0;     // số bước đi lên đã đánh giá / đã nhận trong cửa sổ 1024 bước
+        int climbed = 0;
+        int lastImproved = 0;
+        int it = 0;
 
-            for (int c = 0; c < Sudoku.SIZE; c++)
+        for (; it < maxIterations && currConf > 0 && moves.hasMoves(); it++)
+        {
+            // kiểm tra hủy / hết giờ sau mỗi 1024 bước
+            if ((it & 1023) == 0 && cancel.isCancelled())
             {
-                if (!current.isFixed(r, c))
-                {
-                    idx.add(c);
-                }
+                break;
             }
 
-            if (idx.size() < 2)
+            if (!adaptive)
             {
-                continue;
+                t = temperature(it);
             }
+            else if ((it & 1023) == 0 && it > 0)
+            {
+                t = steer(t, t0, it, uphill, climbed, it - lastImproved);
+                uphill = 0;
+                climbed = 0;
 
-            int a = idx.get(rd.nextInt(idx.size()));
-            int b = idx.get(rd.nextInt(idx.size()));
+                if (it - lastImproved >= stallLimit)
+                {
+                    lastImproved = it;      // đếm lại từ lần hâm nóng này
+                }
+            }
 
-            if (a == b)
+            // báo cáo định kỳ, chỉ khi có người nghe
+            if ((it & 1023) == 0 && it > 0 && listener != SolverListener.NONE)
             {
-                continue;
+                listener.checkpoint(new Checkpoint("Simulated_Annealing", it, System.nanoTime() - start, currConf,
+                        bestConf, (double) accepted / proposed, t, Double.NaN));
+                proposed = 0;
+                accepted = 0;
             }
 
-            // apply swap
-            swap(current, r, a, b);
+            // pick random row to modify
+            int r = moves.randomRow(rd);
+            int pair = moves.pair(r, rd);
+            int a = MoveTable.first(pair);
+            int b = MoveTable.second(pair);
 
-            int newConf = current.conflicts();
-            int delta = newConf - currConf;
+            // evaluate swap without applying it
+            int delta = current.swapDelta(r, a, b);
+            proposed++;
 
             if (delta <= 0)
             {
-                currConf = newConf;
+                accepted++;
+                current.swap(r, a, b);
+                currConf += delta;
 
-                if (currConf == 0)
+                if (currConf < bestConf)
                 {
-                    return current;
+                    bestConf = currConf;
+                    lastImproved = it;
+                    listener.improved(currConf, it);
                 }
             }
             else
             {
                 double prob = Math.exp(-delta / t);
+                uphill++;
 
                 if (rd.nextDouble() < prob)
                 {
-                    currConf = newConf;
-                }
-                else
-                {
-                    // revert
-                    swap(current, r, a, b);
+                    accepted++;
+                    climbed++;
+                    current.swap(r, a, b);
+                    currConf += delta;
                 }
             }
         }
 
+        listener.finished(it);
         return (currConf == 0) ? current : null;
     }
 
-    private double temperature(int iter)
+    // nhiệt độ đầu = độ lệch chuẩn của delta trên một mẫu phép đổi ngẫu nhiên (không áp dụng)
+    private double calibrate(Sudoku current, MoveTable moves)
     {
-        double fraction = (double) iter / (double) maxIterations;
-        return startTemp * Math.pow(endTemp / startTemp, fraction);
+        double sum = 0;
+        double sumSq = 0;
+
+        for (int s = 0; s < samples; s++)
+        {
+            int r = moves.randomRow(rd);
+            int pair = moves.pair(r, rd);
+            int delta = current.swapDelta(r, MoveTable.first(pair), MoveTable.second(pair));
+            sum += delta;
+            sumSq += (double) delta * delta;
+        }
+
+        double mean = sum / samples;
+        double sd = Math.sqrt(Math.max(0, sumSq / samples - mean * mean));
+
+        return sd > 0 ? sd : startTemp;
     }
 
-    private void swap(Sudoku s, int r, int c1, int c2)
+    // chỉnh nhiệt độ theo tỉ lệ nhận bước đi lên của cửa sổ vừa qua so với mục tiêu
+    private double steer(double t, double t0, int iter, int uphill, int climbed, int stalled)
     {
-        int temp = s.get(r, c1);
+        if (stalled >= stallLimit)
+        {
+            return Math.max(t, reheat * t0);
+        }
+
+        if (uphill == 0)
+        {
+            return t;
+        }
+
+        double fraction = (double) iter / (double) maxIterations;
+        double target = startAcceptance * Math.pow(endAcceptance / startAcceptance, fraction);
+        double rate = (double) climbed / uphill;
 
-        s.set(r, c1, s.get(r, c2));
-        s.set(r, c2, temp);
+        t = rate > target ? t * cooling : t / cooling;
+        return Math.max(endTemp, Math.min(t, t0));
+    }
+
+    private double temperature(int iter)
+    {
+        double fraction = (double) iter / (double) maxIterations;
+        return startTemp * Math.pow(endTemp / startTemp, fraction);
     }
 }
\ No newline at end of file
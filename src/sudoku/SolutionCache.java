@@ -0,0 +1,83 @@
+package sudoku;
+
+import java.util.*;
+
+/**
+ * Bounded least-recently-used store of solved puzzles, shared by any number
+ * of CachingSolver instances. Two maps are kept: one keyed by the clues
+ * exactly as given, which costs nothing to look up, and one keyed by the
+ * canonical form, which also matches relabelled, permuted and transposed
+ * copies of a puzzle. Methods are synchronized; solving happens outside.
+ */
+public class SolutionCache
+{
+    private final Map<String, String> exact;
+    private final Map<String, String> canonical;
+
+    private long hits;
+    private long misses;
+
+    public SolutionCache(int capacity)
+    {
+        this.exact = lru(capacity);
+        this.canonical = lru(capacity);
+    }
+
+    private static Map<String, String> lru(int capacity)
+    {
+        return new LinkedHashMap<String, String>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** Solution line for exactly these clues, or null. */
+    synchronized String exact(String clues)
+    {
+        return exact.get(clues);
+    }
+
+    /** Solution in canonical orientation for this canonical key, or null. */
+    synchronized String canonical(String key)
+    {
+        String solution = canonical.get(key);
+
+        if (solution != null)
+        {
+            hits++;
+        }
+        else
+        {
+            misses++;
+        }
+
+        return solution;
+    }
+
+    synchronized void putExact(String clues, String solution)
+    {
+        exact.put(clues, solution);
+    }
+
+    synchronized void put(String clues, String solution, String key, String canonicalSolution)
+    {
+        exact.put(clues, solution);
+        canonical.put(key, canonicalSolution);
+    }
+
+    /** Lookups that missed the exact map and were answered by the canonical one. */
+    public synchronized long hits()
+    {
+        return hits;
+    }
+
+    /** Lookups that missed both maps and went to a solver. */
+    public synchronized long misses()
+    {
+        return misses;
+    }
+}
@@ -0,0 +1,487 @@
+package sudoku;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless solve service on the JDK's built-in HTTP server, listening on the
+ * loopback address only:
+ *
+ *     POST /solve[?solver=name&timeout=ms]   body: one puzzle per line
+ *     GET  /health
+ *
+ * Puzzles use Sudoku.parse's one-line format (81, 256, 625, ... symbols);
+ * blank lines and lines starting with '#' are skipped. The answer has one
+ * line per puzzle, in order, as Batch writes them:
+ *
+ *     solution-or-input,status,micros
+ *
+ * where status is solved, failed, timeout or invalid.
+ *
+ * Admission control: puzzles wait in one queue shared by all requests,
+ * bounded by --queue. A request is admitted only if all its puzzles fit;
+ * otherwise it is refused at once with 503 and Retry-After, so a load spike
+ * turns into fast refusals instead of growing latency. A request with more
+ * puzzles than the queue can ever hold gets 413.
+ *
+ * Batching: each of the --threads workers takes the oldest waiting puzzle.
+ * If it is cheap (9x9 with Backtracking, or already in the cache), the
+ * worker also takes up to --batch - 1 more cheap ones from the head of the
+ * queue, from any request, and solves them back to back with its own
+ * solver instances, so small puzzles pay one hand-off per batch. It only
+ * takes puzzles beyond one per idle worker, so a batch never holds back a
+ * puzzle that another worker could start on.
+ *
+ * Deadlines: a request's deadline is its timeout parameter, capped by
+ * --timeout. Solvers get the time that is left, and puzzles still waiting
+ * at the deadline are answered with timeout without being solved.
+ * Request handlers run on their own threads and mostly wait; admission
+ * bounds how many of them wait at once.
+ *
+ * Usage: java sudoku.SolveServer [--port N] [--solver name] [--threads N] [--queue N]
+ *                                [--batch N] [--timeout ms] [--cache N]
+ */
+public class SolveServer
+{
+    private static final int MAX_BODY = 4 << 20;
+    private static final long GRACE_NANOS = 1_000_000_000L;   // thời gian chờ bộ giải dừng sau hạn chót
+
+    private int port = 8080;
+    private String solverName = "Backtracking";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queue = 1024;
+    private int batch = 16;
+    private Duration timeout = Duration.ofSeconds(10);
+    private int cacheSize;                  // 0 = không dùng bộ nhớ đệm
+
+    private HttpServer server;
+    private ExecutorService handlers;
+    private final List<Thread> workers = new ArrayList<>();
+    private final BlockingDeque<Job> pending = new LinkedBlockingDeque<>();
+    private final AtomicInteger idle = new AtomicInteger();   // số luồng giải đang chờ đề
+    private Semaphore slots;                // chỗ trống trong hàng đợi
+    private SolutionCache cache;
+
+    // thống kê
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+
+    // một đề đang chờ hoặc đang giải
+    private static final class Job
+    {
+        final String line;
+        final Sudoku puzzle;
+        final String solver;
+        final Cancellation deadline;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Job(String line, Sudoku puzzle, String solver, Cancellation deadline)
+        {
+            this.line = line;
+            this.puzzle = puzzle;
+            this.solver = solver;
+            this.deadline = deadline;
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        SolveServer s = new SolveServer();
+
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--port":    s.port = Integer.parseInt(args[i + 1]); break;
+                case "--solver":  s.solverName = args[i + 1]; break;
+                case "--threads": s.threads = Integer.parseInt(args[i + 1]); break;
+                case "--queue":   s.queue = Integer.parseInt(args[i + 1]); break;
+                case "--batch":   s.batch = Integer.parseInt(args[i + 1]); break;
+                case "--timeout": s.timeout = Duration.ofMillis(Long.parseLong(args[i + 1])); break;
+                case "--cache":   s.cacheSize = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Solvers.create(s.solverName);   // kiểm tra tên trước khi mở cổng
+
+        s.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(s::stop));
+        System.err.println("Listening on http://" + s.address().getHostString() + ":" + s.address().getPort()
+                + "/solve (" + s.threads + " workers, queue " + s.queue + ", batch " + s.batch + ")");
+    }
+
+    /** Open the port and start the workers. */
+    public synchronized void start() throws IOException
+    {
+        slots = new Semaphore(queue);
+        cache = cacheSize > 0 ? new SolutionCache(cacheSize) : null;
+        handlers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "solve-handler");
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (int i = 0; i < Math.max(1, threads); i++)
+        {
+            Thread t = new Thread(this::work, "solve-worker-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(handlers);
+        server.createContext("/solve", this::solve);
+        server.createContext("/health", this::health);
+        server.start();
+    }
+
+    /** Stop accepting requests and stop the workers; puzzles still waiting are dropped. */
+    public synchronized void stop()
+    {
+        if (server == null)
+        {
+            return;
+        }
+
+        server.stop(0);
+        server = null;
+        handlers.shutdownNow();
+
+        for (Thread t : workers)
+        {
+            t.interrupt();
+        }
+
+        workers.clear();
+    }
+
+    /** The address the server listens on (useful with --port 0). */
+    public InetSocketAddress address()
+    {
+        return server.getAddress();
+    }
+
+    private void solve(HttpExchange ex) throws IOException
+    {
+        try
+        {
+            if (!"POST".equals(ex.getRequestMethod()))
+            {
+                respond(ex, 405, "Use POST with one puzzle per line\n");
+                return;
+            }
+
+            Map<String, String> query = query(ex.getRequestURI());
+            String solver = query.getOrDefault("solver", solverName);
+            Duration limit = timeout;
+
+            try
+            {
+                Solvers.create(solver);
+
+                if (query.containsKey("timeout"))
+                {
+                    limit = Duration.ofMillis(Math.min(Long.parseLong(query.get("timeout")), timeout.toMillis()));
+                }
+            }
+            catch (IllegalArgumentException e)
+            {
+                respond(ex, 400, e.getMessage() + "\n");
+                return;
+            }
+
+            byte[] body = ex.getRequestBody().readNBytes(MAX_BODY + 1);
+
+            if (body.length > MAX_BODY)
+            {
+                respond(ex, 413, "Request body larger than " + MAX_BODY + " bytes\n");
+                return;
+            }
+
+            long end = System.nanoTime() + limit.toNanos();
+            Cancellation deadline = Cancellation.after(limit);
+            List<Job> all = new ArrayList<>();      // theo thứ tự trong yêu cầu
+            List<Job> queued = new ArrayList<>();
+
+            for (String line : new String(body, StandardCharsets.US_ASCII).split("\r?\n"))
+            {
+                String text = line.trim();
+
+                if (text.isEmpty() || text.startsWith("#"))
+                {
+                    continue;
+                }
+
+                Sudoku puzzle = Sudoku.parseExact(text);
+                Job job = new Job(text, puzzle, solver, deadline);
+
+                if (puzzle == null)
+                {
+                    finish(job, text, "invalid", 0);
+                }
+                else
+                {
+                    queued.add(job);
+                }
+
+                all.add(job);
+            }
+
+            if (queued.size() > queue)
+            {
+                respond(ex, 413, "At most " + queue + " puzzles per request\n");
+                return;
+            }
+
+            // nhận cả yêu cầu hoặc từ chối ngay, không xếp hàng một phần
+            if (!slots.tryAcquire(queued.size()))
+            {
+                refused.incrementAndGet();
+                ex.getResponseHeaders().set("Retry-After", "1");
+                respond(ex, 503, "Server busy, try again later\n");
+                return;
+            }
+
+            pending.addAll(queued);
+
+            StringBuilder out = new StringBuilder();
+
+            for (Job job : all)
+            {
+                out.append(await(job, end));
+            }
+
+            respond(ex, 200, out.toString());
+        }
+        finally
+        {
+            ex.close();
+        }
+    }
+
+    // chờ kết quả của một đề tới hạn chót (cộng thời gian để bộ giải kịp dừng)
+    private String await(Job job, long end)
+    {
+        try
+        {
+            return job.result.get(Math.max(0, end - System.nanoTime()) + GRACE_NANOS, TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            job.deadline.cancel();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            job.deadline.cancel();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Job completed exceptionally", e.getCause());   // finish() không làm vậy
+        }
+
+        // luồng giải có thể vừa kịp xong: kết quả nào hoàn tất trước thì được trả về
+        finish(job, job.line, "timeout", 0);
+        return job.result.join();
+    }
+
+    /**
+     * Complete the job with this outcome and count it, unless another
+     * thread completed it first: every job is counted exactly once, by
+     * whoever answers it.
+     */
+    private void finish(Job job, String grid, String status, long micros)
+    {
+        if (!job.result.complete(answer(grid, status, micros)))
+        {
+            return;
+        }
+
+        switch (status)
+        {
+            case "solved":  solved.incrementAndGet(); break;
+            case "failed":  failed.incrementAndGet(); break;
+            case "timeout": timedOut.incrementAndGet(); break;
+            default:        invalid.incrementAndGet(); break;
+        }
+    }
+
+    // vòng lặp của một luồng giải: lấy một đề, kèm các đề rẻ còn thừa, giải lần lượt
+    private void work()
+    {
+        Map<String, Solver> solvers = new HashMap<>();
+        List<Job> taken = new ArrayList<>(batch);
+
+        try
+        {
+            while (true)
+            {
+                Job first;
+                idle.incrementAndGet();
+
+                try
+                {
+                    first = pending.takeFirst();
+                }
+                finally
+                {
+                    idle.decrementAndGet();
+                }
+
+                taken.add(first);
+
+                if (cheap(first))
+                {
+                    takeCheap(taken);
+                }
+
+                slots.release(taken.size());
+
+                for (Job job : taken)
+                {
+                    try
+                    {
+                        run(job, solvers);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        finish(job, job.line, "failed", 0);
+                    }
+                }
+
+                taken.clear();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // thêm các đề rẻ ở đầu hàng đợi, nhưng chỉ phần vượt quá số luồng đang rảnh
+    private void takeCheap(List<Job> taken)
+    {
+        while (taken.size() < batch && pending.size() > idle.get())
+        {
+            Job next = pending.pollFirst();
+
+            if (next == null)
+            {
+                return;
+            }
+
+            if (!cheap(next))
+            {
+                pending.offerFirst(next);   // trả lại đúng chỗ cũ cho luồng khác
+                return;
+            }
+
+            taken.add(next);
+        }
+    }
+
+    // đề giải xong trong vài chục micro giây: 9x9 bằng Backtracking, hoặc đã có trong bộ nhớ đệm
+    private boolean cheap(Job job)
+    {
+        return job.puzzle.size() == Sudoku.SIZE && Solvers.key(job.solver).equals("backtracking")
+                || cache != null && CachingSolver.cached(cache, job.puzzle);
+    }
+
+    private void run(Job job, Map<String, Solver> solvers)
+    {
+        // đã được trả lời (hết hạn) hoặc hết hạn khi còn chờ
+        if (job.result.isDone() || job.deadline.isCancelled())
+        {
+            finish(job, job.line, "timeout", 0);
+            return;
+        }
+
+        Solver solver = solvers.computeIfAbsent(job.solver, name -> {
+            Solver s = SolverEvents.recorded(Solvers.create(name));
+            return cache == null ? s : new CachingSolver(s, cache);
+        });
+
+        long start = System.nanoTime();
+        Sudoku result = solver.solve(job.puzzle, job.deadline);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        if (result != null && result.solves(job.puzzle))
+        {
+            finish(job, result.toLine(), "solved", micros);
+        }
+        else
+        {
+            finish(job, job.line, job.deadline.isCancelled() ? "timeout" : "failed", micros);
+        }
+    }
+
+    private void health(HttpExchange ex) throws IOException
+    {
+        try
+        {
+            respond(ex, 200, String.format(Locale.ROOT,
+                    "ok queued=%d workers=%d solved=%d failed=%d timeout=%d invalid=%d refused=%d%n",
+                    pending.size(), workers.size(), solved.get(), failed.get(), timedOut.get(), invalid.get(),
+                    refused.get()));
+        }
+        finally
+        {
+            ex.close();
+        }
+    }
+
+    private static String answer(String grid, String status, long micros)
+    {
+        return grid + ',' + status + ',' + micros + '\n';
+    }
+
+    private static Map<String, String> query(URI uri)
+    {
+        Map<String, String> map = new HashMap<>();
+        String raw = uri.getRawQuery();
+
+        if (raw == null)
+        {
+            return map;
+        }
+
+        for (String pair : raw.split("&"))
+        {
+            int eq = pair.indexOf('=');
+
+            if (eq > 0)
+            {
+                map.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+
+        return map;
+    }
+
+    private static void respond(HttpExchange ex, int code, String text) throws IOException
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+
+        ex.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        ex.sendResponseHeaders(code, bytes.length);
+
+        try (OutputStream out = ex.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+}
@@ -1,10 +1,39 @@
 package sudoku;
 
+import java.time.Duration;
+
 //Solver.java
+/**
+ * A Sudoku solving algorithm. Instances keep per-solve state (random
+ * generator, scratch tables, listener) and are not thread-safe: use one
+ * instance per concurrent solve.
+ */
 public interface Solver {
  /**
   * Solve the given sudoku puzzle. The solver must respect fixed cells from the puzzle.
   * Returns a solved Sudoku object or null if not found.
   */
- Sudoku solve(Sudoku puzzle);
+ default Sudoku solve(Sudoku puzzle) {
+  return solve(puzzle, new Cancellation());
+ }
+
+ /**
+  * Same as solve(puzzle), but gives up once the time limit has passed.
+  */
+ default Sudoku solve(Sudoku puzzle, Duration timeLimit) {
+  return solve(puzzle, Cancellation.after(timeLimit));
+ }
+
+ /**
+  * Same as solve(puzzle), but stops as soon as the signal is cancelled.
+  * A solver stopped early returns what it would return on running out of
+  * iterations: null, or its best board so far for solvers that report one.
+  */
+ Sudoku solve(Sudoku puzzle, Cancellation cancel);
+
+ /**
+  * Report progress of later solve calls to the given listener.
+  * Solvers without intermediate results ignore it.
+  */
+ default void setListener(SolverListener listener) { }
 }
\ No newline at end of file
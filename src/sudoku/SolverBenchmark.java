@@ -0,0 +1,286 @@
+package sudoku;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * End-to-end benchmark: runs every solver over a locally generated corpus of
+ * unique-solution puzzles per Difficulty, with several seeds per puzzle.
+ * Per run it records the puzzle's clue count and Backtracking node count (a
+ * difficulty measure), success, wall time, iterations / generations / nodes
+ * used, peak heap, and from SolverMetrics the time to first improvement,
+ * steps per second and mean acceptance rate / population diversity; per
+ * solver and tier it reports success rate, median and p99 wall time, median
+ * steps and peak heap, as CSV.
+ *
+ * Usage: java sudoku.SolverBenchmark [--puzzles N] [--seeds N] [--timeout ms]
+ *                                    [--solvers a,b,...] [--runs file.csv]
+ */
+public class SolverBenchmark
+{
+    private int puzzlesPerTier = 5;
+    private int seeds = 3;
+    private Duration timeout = Duration.ofSeconds(10);
+    private List<String> solvers = Solvers.NAMES;
+    private Path runsFile;
+
+    public static void main(String[] args) throws IOException
+    {
+        SolverBenchmark bench = new SolverBenchmark();
+
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--puzzles": bench.puzzlesPerTier = Integer.parseInt(args[i + 1]); break;
+                case "--seeds":   bench.seeds = Integer.parseInt(args[i + 1]); break;
+                case "--timeout": bench.timeout = Duration.ofMillis(Long.parseLong(args[i + 1])); break;
+                case "--solvers": bench.solvers = Arrays.asList(args[i + 1].split(",")); break;
+                case "--runs":    bench.runsFile = Paths.get(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        bench.run(new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true));
+    }
+
+    /** One puzzle of the corpus. */
+    static final class Entry
+    {
+        final Difficulty tier;
+        final Sudoku puzzle;
+        final int clues;
+        final long nodes;     // số nút Backtracking cần, thước đo độ khó
+
+        Entry(Difficulty tier, Sudoku puzzle, int clues, long nodes)
+        {
+            this.tier = tier;
+            this.puzzle = puzzle;
+            this.clues = clues;
+            this.nodes = nodes;
+        }
+    }
+
+    /** Result of one solver run. */
+    static final class Run
+    {
+        String solver;
+        Difficulty tier;
+        int clues;
+        long nodes;
+        long seed;
+        boolean success;
+        double millis;
+        long steps;
+        long peakHeap;
+        double firstImprovementMillis;
+        double stepsPerSecond;
+        double acceptance;
+        double diversity;
+    }
+
+    void run(PrintWriter summary) throws IOException
+    {
+        List<Entry> corpus = corpus(new SplittableRandom(2024), puzzlesPerTier);
+        List<Run> runs = new ArrayList<>();
+
+        try (PrintWriter out = runsFile == null ? null
+                : new PrintWriter(Files.newBufferedWriter(runsFile, StandardCharsets.UTF_8)))
+        {
+            if (out != null)
+            {
+                out.println("solver,tier,clues,bt_nodes,seed,success,millis,steps,peak_heap_bytes,"
+                        + "first_improvement_ms,steps_per_s,acceptance,diversity");
+            }
+
+            for (String name : solvers)
+            {
+                for (Entry e : corpus)
+                {
+                    for (int s = 0; s < seeds; s++)
+                    {
+                        Run r = measure(name, e, 1000L * s + 17);
+                        runs.add(r);
+
+                        if (out != null)
+                        {
+                            out.printf(Locale.ROOT, "%s,%s,%d,%d,%d,%b,%.3f,%d,%d,%.3f,%.0f,%.4f,%.4f%n", r.solver,
+                                    r.tier, r.clues, r.nodes, r.seed, r.success, r.millis, r.steps, r.peakHeap,
+                                    r.firstImprovementMillis, r.stepsPerSecond, r.acceptance, r.diversity);
+                            out.flush();
+                        }
+                    }
+                }
+            }
+        }
+
+        summary.println("solver,tier,runs,success_rate,median_ms,p99_ms,median_steps,peak_heap_mb");
+
+        for (String name : solvers)
+        {
+            for (Difficulty tier : Difficulty.values())
+            {
+                List<Run> group = new ArrayList<>();
+
+                for (Run r : runs)
+                {
+                    if (r.solver.equals(name) && r.tier == tier)
+                    {
+                        group.add(r);
+                    }
+                }
+
+                if (group.isEmpty())
+                {
+                    continue;
+                }
+
+                double[] millis = group.stream().mapToDouble(r -> r.millis).sorted().toArray();
+                double[] steps = group.stream().mapToDouble(r -> r.steps).sorted().toArray();
+                long ok = group.stream().filter(r -> r.success).count();
+                long peak = group.stream().mapToLong(r -> r.peakHeap).max().orElse(0);
+
+                summary.printf(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%.0f,%.1f%n", name, tier, group.size(),
+                        (double) ok / group.size(), percentile(millis, 50), percentile(millis, 99),
+                        percentile(steps, 50), peak / (1024.0 * 1024.0));
+            }
+        }
+    }
+
+    private Run measure(String name, Entry e, long seed)
+    {
+        Solver solver = Solvers.create(name, seed);
+        SolverMetrics metrics = new SolverMetrics();
+
+        solver.setListener(metrics);
+
+        System.gc();
+        resetPeakHeap();
+
+        long start = System.nanoTime();
+        Sudoku result = solver.solve(e.puzzle.clone(), timeout);
+        long end = System.nanoTime();
+
+        Run r = new Run();
+        r.solver = name;
+        r.tier = e.tier;
+        r.clues = e.clues;
+        r.nodes = e.nodes;
+        r.seed = seed;
+        r.success = result != null && result.solves(e.puzzle);
+        r.millis = (end - start) / 1e6;
+        r.steps = metrics.steps();
+        r.peakHeap = peakHeap();
+        r.firstImprovementMillis = metrics.timeToFirstImprovement() < 0 ? Double.NaN
+                : metrics.timeToFirstImprovement() / 1e6;
+        r.stepsPerSecond = metrics.stepsPerSecond();
+        r.acceptance = metrics.meanAcceptance();
+        r.diversity = metrics.meanDiversity();
+        return r;
+    }
+
+    /**
+     * Unique-solution puzzles from PuzzleGenerator for every difficulty,
+     * each with a clue target drawn from the tier's range so the corpus
+     * spreads around the Difficulty targets. The generator may stop above
+     * the target; the puzzle's actual clue count is recorded.
+     */
+    static List<Entry> corpus(SplittableRandom rnd, int perTier)
+    {
+        List<Entry> corpus = new ArrayList<>();
+        PuzzleGenerator generator = new PuzzleGenerator(rnd);
+        Backtracking exact = new Backtracking();
+        long[] nodes = new long[1];
+
+        exact.setListener(new SolverListener()
+        {
+            @Override
+            public void improved(int conflicts, long step) { }
+
+            @Override
+            public void finished(long n)
+            {
+                nodes[0] = n;
+            }
+        });
+
+        for (Difficulty tier : Difficulty.values())
+        {
+            for (int i = 0; i < perTier; i++)
+            {
+                int[] range = clueRange(tier);
+                Sudoku puzzle = generator.generate(range[0] + rnd.nextInt(range[1] - range[0] + 1));
+
+                exact.solve(puzzle);
+                corpus.add(new Entry(tier, puzzle, clues(puzzle), nodes[0]));
+            }
+        }
+
+        return corpus;
+    }
+
+    // khoảng số gợi ý của mỗi mức (9x9)
+    static int[] clueRange(Difficulty tier)
+    {
+        switch (tier)
+        {
+            case EASY:   return new int[] { 40, 45 };
+            case MEDIUM: return new int[] { 32, 36 };
+            default:     return new int[] { 26, 30 };
+        }
+    }
+
+    private static int clues(Sudoku puzzle)
+    {
+        int n = 0;
+
+        for (int r = 0; r < puzzle.size(); r++)
+        {
+            for (int c = 0; c < puzzle.size(); c++)
+            {
+                if (puzzle.isFixed(r, c))
+                {
+                    n++;
+                }
+            }
+        }
+
+        return n;
+    }
+
+    private static double percentile(double[] sorted, int p)
+    {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static void resetPeakHeap()
+    {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+            {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap()
+    {
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+            {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        return peak;
+    }
+}
@@ -0,0 +1,167 @@
+package sudoku;
+
+import jdk.jfr.*;
+
+/**
+ * Custom JDK Flight Recorder events for the solvers. Wrap a solver with
+ * recorded() to emit them; they cost next to nothing unless a recording
+ * is running (e.g. java -XX:StartFlightRecording ...), and can then be
+ * viewed in JDK Mission Control under the "Sudoku" category.
+ *
+ *   sudoku.Solve        one per solve: duration, solver, result, steps
+ *   sudoku.Improvement  every new best conflict count
+ *   sudoku.Checkpoint   every Checkpoint a solver reports
+ */
+public final class SolverEvents
+{
+    private SolverEvents() { }
+
+    @Name("sudoku.Solve")
+    @Label("Sudoku Solve")
+    @Category("Sudoku")
+    @StackTrace(false)
+    static final class Solve extends Event
+    {
+        @Label("Solver") String solver;
+        @Label("Solved") boolean solved;
+        @Label("Conflicts") int conflicts;
+        @Label("Steps") long steps;
+    }
+
+    @Name("sudoku.Improvement")
+    @Label("Sudoku Improvement")
+    @Category("Sudoku")
+    @StackTrace(false)
+    static final class Improvement extends Event
+    {
+        @Label("Solver") String solver;
+        @Label("Conflicts") int conflicts;
+        @Label("Step") long step;
+    }
+
+    @Name("sudoku.Checkpoint")
+    @Label("Sudoku Checkpoint")
+    @Category("Sudoku")
+    @StackTrace(false)
+    static final class CheckpointEvent extends Event
+    {
+        @Label("Engine") String engine;
+        @Label("Step") long step;
+        @Label("Conflicts") int conflicts;
+        @Label("Best") int best;
+        @Label("Steps Per Second") double stepsPerSecond;
+        @Label("Acceptance") double acceptance;
+        @Label("Temperature") double temperature;
+        @Label("Diversity") double diversity;
+    }
+
+    /**
+     * The solver with a Solve event around every solve and Improvement /
+     * Checkpoint events for its reports. A listener set on the result still
+     * receives every report. When none of the events is enabled at the
+     * start of a solve, the solver gets that listener unwrapped, so the
+     * engines' SolverListener.NONE fast paths still apply.
+     */
+    public static Solver recorded(Solver solver)
+    {
+        return new Recorded(solver);
+    }
+
+    private static final class Recorded implements Solver
+    {
+        private final Solver solver;
+        private final String name;
+        private volatile long steps;
+        private SolverListener listener = SolverListener.NONE;
+
+        Recorded(Solver solver)
+        {
+            this.solver = solver;
+            this.name = solver.getClass().getSimpleName();
+        }
+
+        @Override
+        public void setListener(SolverListener listener)
+        {
+            this.listener = listener;
+        }
+
+        @Override
+        public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+        {
+            Solve event = new Solve();
+            boolean recording = event.isEnabled() || new Improvement().isEnabled()
+                    || new CheckpointEvent().isEnabled();
+
+            // không ghi thì giữ nguyên listener, kể cả NONE
+            solver.setListener(recording ? events(listener) : listener);
+            event.begin();
+            steps = 0;
+
+            Sudoku result = solver.solve(puzzle, cancel);
+
+            event.end();
+
+            if (event.shouldCommit())
+            {
+                event.solver = name;
+                event.solved = result != null && result.solves(puzzle);
+                event.conflicts = result == null ? -1 : result.conflicts();
+                event.steps = steps;
+                event.commit();
+            }
+
+            return result;
+        }
+
+        private SolverListener events(SolverListener next)
+        {
+            return new SolverListener()
+            {
+                @Override
+                public void improved(int conflicts, long step)
+                {
+                    Improvement e = new Improvement();
+
+                    if (e.shouldCommit())
+                    {
+                        e.solver = name;
+                        e.conflicts = conflicts;
+                        e.step = step;
+                        e.commit();
+                    }
+
+                    next.improved(conflicts, step);
+                }
+
+                @Override
+                public void checkpoint(Checkpoint c)
+                {
+                    CheckpointEvent e = new CheckpointEvent();
+
+                    if (e.shouldCommit())
+                    {
+                        e.engine = c.solver;
+                        e.step = c.step;
+                        e.conflicts = c.conflicts;
+                        e.best = c.best;
+                        e.stepsPerSecond = c.stepsPerSecond();
+                        e.acceptance = c.acceptance;
+                        e.temperature = c.temperature;
+                        e.diversity = c.diversity;
+                        e.commit();
+                    }
+
+                    next.checkpoint(c);
+                }
+
+                @Override
+                public void finished(long n)
+                {
+                    steps = n;
+                    next.finished(n);
+                }
+            };
+        }
+    }
+}
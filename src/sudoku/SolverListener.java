@@ -0,0 +1,58 @@
+package sudoku;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress callbacks from a running solver. Calls come from the solving
+ * thread (or threads, for the parallel solvers), so implementations must
+ * hand results over to other threads themselves.
+ */
+public interface SolverListener
+{
+    SolverListener NONE = (conflicts, step) -> { };
+
+    /**
+     * The best board so far now has the given number of conflicts.
+     * step is the iteration or generation at which it was found.
+     */
+    void improved(int conflicts, long step);
+
+    /**
+     * The solve has ended after the given number of iterations, generations
+     * or search nodes, whether or not it found a solution.
+     */
+    default void finished(long steps) { }
+
+    /**
+     * Periodic snapshot of the running solve, see Checkpoint. Solvers only
+     * build snapshots when a listener other than NONE is set, so a solve
+     * without a listener pays nothing for them.
+     */
+    default void checkpoint(Checkpoint c) { }
+
+    /**
+     * Thread-safe listener for solvers that run several searches at once:
+     * forwards a report only when it beats every report seen so far.
+     * finished() and checkpoint() are not forwarded; the combining solver
+     * reports finished() once and passes checkpoints on itself.
+     */
+    static SolverListener bestOf(SolverListener target)
+    {
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+
+        return (conflicts, step) -> {
+            int prev = best.get();
+
+            while (conflicts < prev)
+            {
+                if (best.compareAndSet(prev, conflicts))
+                {
+                    target.improved(conflicts, step);
+                    return;
+                }
+
+                prev = best.get();
+            }
+        };
+    }
+}
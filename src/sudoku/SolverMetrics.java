@@ -0,0 +1,181 @@
+package sudoku;
+
+import java.util.*;
+
+/**
+ * Listener that records what one solve did: the best-conflict trajectory
+ * with timestamps, the time to the first improvement on the starting board,
+ * the latest checkpoint with running averages of acceptance and diversity,
+ * and the final step count. Times count from the creation of the instance,
+ * so create a new one right before each solve. Reports can come from
+ * several threads; calls are also forwarded to an optional next listener.
+ */
+public class SolverMetrics implements SolverListener
+{
+    /** One point of the best-conflict trajectory. */
+    public static final class Point
+    {
+        public final long nanos;       // tính từ lúc tạo SolverMetrics
+        public final long step;
+        public final int conflicts;
+
+        Point(long nanos, long step, int conflicts)
+        {
+            this.nanos = nanos;
+            this.step = step;
+            this.conflicts = conflicts;
+        }
+    }
+
+    private final SolverListener next;
+
+    private final long origin = System.nanoTime();
+    private long firstImprovement = -1;
+    private final List<Point> trajectory = new ArrayList<>();
+    private Checkpoint last;
+    private int checkpoints;
+    private double acceptanceSum;
+    private int acceptanceCount;
+    private double diversitySum;
+    private int diversityCount;
+    private long steps = -1;
+    private long elapsed = -1;
+
+    public SolverMetrics()
+    {
+        this(SolverListener.NONE);
+    }
+
+    public SolverMetrics(SolverListener next)
+    {
+        this.next = next;
+    }
+
+    @Override
+    public void improved(int conflicts, long step)
+    {
+        synchronized (this)
+        {
+            long now = sinceOrigin();
+
+            if (trajectory.isEmpty() || conflicts < trajectory.get(trajectory.size() - 1).conflicts)
+            {
+                if (!trajectory.isEmpty() && firstImprovement < 0)
+                {
+                    firstImprovement = now;
+                }
+
+                trajectory.add(new Point(now, step, conflicts));
+            }
+        }
+
+        next.improved(conflicts, step);
+    }
+
+    @Override
+    public void checkpoint(Checkpoint c)
+    {
+        synchronized (this)
+        {
+            last = c;
+            checkpoints++;
+
+            if (!Double.isNaN(c.acceptance))
+            {
+                acceptanceSum += c.acceptance;
+                acceptanceCount++;
+            }
+
+            if (!Double.isNaN(c.diversity))
+            {
+                diversitySum += c.diversity;
+                diversityCount++;
+            }
+        }
+
+        next.checkpoint(c);
+    }
+
+    @Override
+    public void finished(long n)
+    {
+        synchronized (this)
+        {
+            elapsed = sinceOrigin();
+            steps = n;
+        }
+
+        next.finished(n);
+    }
+
+    private long sinceOrigin()
+    {
+        return System.nanoTime() - origin;
+    }
+
+    /** Nanoseconds to the first improvement on the starting board, or -1. */
+    public synchronized long timeToFirstImprovement()
+    {
+        return firstImprovement;
+    }
+
+    /** Best conflicts over time, one point per improvement. */
+    public synchronized List<Point> trajectory()
+    {
+        return new ArrayList<>(trajectory);
+    }
+
+    /** The most recent checkpoint, or null. */
+    public synchronized Checkpoint lastCheckpoint()
+    {
+        return last;
+    }
+
+    public synchronized int checkpoints()
+    {
+        return checkpoints;
+    }
+
+    /** Mean acceptance rate over the checkpoints that report one, or NaN. */
+    public synchronized double meanAcceptance()
+    {
+        return acceptanceCount > 0 ? acceptanceSum / acceptanceCount : Double.NaN;
+    }
+
+    /** Mean population diversity over the checkpoints that report one, or NaN. */
+    public synchronized double meanDiversity()
+    {
+        return diversityCount > 0 ? diversitySum / diversityCount : Double.NaN;
+    }
+
+    /** Steps from finished(), or -1 while still running. */
+    public synchronized long steps()
+    {
+        return steps;
+    }
+
+    /**
+     * Steps per second over the whole solve once finished, otherwise as of
+     * the last checkpoint; 0 if unknown.
+     */
+    public synchronized double stepsPerSecond()
+    {
+        if (steps >= 0 && elapsed > 0)
+        {
+            return steps * 1e9 / elapsed;
+        }
+
+        return last != null ? last.stepsPerSecond() : 0;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        int best = trajectory.isEmpty() ? -1 : trajectory.get(trajectory.size() - 1).conflicts;
+
+        return String.format(Locale.ROOT,
+                "steps=%d steps/s=%.0f best=%d improvements=%d first_improvement_ms=%.3f acceptance=%.3f diversity=%.3f",
+                steps, stepsPerSecond(), best, Math.max(0, trajectory.size() - 1),
+                firstImprovement < 0 ? Double.NaN : firstImprovement / 1e6, meanAcceptance(), meanDiversity());
+    }
+}
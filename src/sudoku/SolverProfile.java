@@ -0,0 +1,167 @@
+package sudoku;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Solver parameters per Difficulty, as written by Tuner. A profile is a
+ * properties file with keys
+ *
+ *     genetic.<tier>.populationSize / maxGenerations / mutationRate
+ *     annealing.<tier>.maxIterations / startTemp / endTemp
+ *
+ * where tier is easy, medium or hard. Missing keys fall back to the
+ * solver's built-in defaults. Solvers.create uses the shared profile, read
+ * once from the file named by the system property sudoku.profile (default
+ * solver-profile.properties in the working directory) if it exists, and
+ * says so on standard error; a profiled solver picks its parameters per
+ * puzzle by Difficulty.classify.
+ */
+public final class SolverProfile
+{
+    public static final String GENETIC = "genetic";
+    public static final String ANNEALING = "annealing";
+
+    private static final String FILE = "solver-profile.properties";
+
+    private static SolverProfile shared;
+
+    private final Properties values;
+
+    public SolverProfile(Properties values)
+    {
+        this.values = values;
+    }
+
+    public static SolverProfile load(Path file) throws IOException
+    {
+        Properties p = new Properties();
+
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+        {
+            p.load(in);
+        }
+
+        return new SolverProfile(p);
+    }
+
+    /**
+     * The profile used by Solvers.create: the file named by sudoku.profile,
+     * or an empty profile if there is none or it cannot be read.
+     */
+    public static synchronized SolverProfile shared()
+    {
+        if (shared == null)
+        {
+            Path file = Paths.get(System.getProperty("sudoku.profile", FILE));
+            shared = new SolverProfile(new Properties());
+
+            if (Files.isRegularFile(file))
+            {
+                try
+                {
+                    shared = load(file);
+                    System.err.println("Using solver profile " + file.toAbsolutePath());
+                }
+                catch (IOException e)
+                {
+                    System.err.println("Ignoring solver profile " + file + ": " + e.getMessage());
+                }
+            }
+        }
+
+        return shared;
+    }
+
+    /** True if the profile has at least one parameter for the solver. */
+    public boolean covers(String solver)
+    {
+        for (String key : values.stringPropertyNames())
+        {
+            if (key.startsWith(solver + "."))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * A solver of the given kind (GENETIC or ANNEALING) with this profile's
+     * parameters for one tier.
+     */
+    public Solver create(String solver, Difficulty tier, long seed)
+    {
+        switch (solver)
+        {
+            case GENETIC:
+                return new Genetic(getInt(solver, tier, "populationSize", Genetic.POPULATION_SIZE),
+                        getInt(solver, tier, "maxGenerations", Genetic.MAX_GENERATIONS),
+                        getDouble(solver, tier, "mutationRate", Genetic.MUTATION_RATE), seed);
+            case ANNEALING:
+                return new Simulated_Annealing(seed,
+                        getInt(solver, tier, "maxIterations", Simulated_Annealing.MAX_ITERATIONS),
+                        getDouble(solver, tier, "startTemp", Simulated_Annealing.START_TEMP),
+                        getDouble(solver, tier, "endTemp", Simulated_Annealing.END_TEMP));
+            default:
+                throw new IllegalArgumentException("No profile parameters for solver: " + solver);
+        }
+    }
+
+    /**
+     * A solver of the given kind that classifies each puzzle and solves it
+     * with this profile's parameters for that tier.
+     */
+    public Solver create(String solver, long seed)
+    {
+        return new Profiled(solver, seed);
+    }
+
+    private int getInt(String solver, Difficulty tier, String name, int fallback)
+    {
+        String v = values.getProperty(key(solver, tier, name));
+        return v == null ? fallback : Integer.parseInt(v.trim());
+    }
+
+    private double getDouble(String solver, Difficulty tier, String name, double fallback)
+    {
+        String v = values.getProperty(key(solver, tier, name));
+        return v == null ? fallback : Double.parseDouble(v.trim());
+    }
+
+    static String key(String solver, Difficulty tier, String name)
+    {
+        return solver + "." + tier.name().toLowerCase(Locale.ROOT) + "." + name;
+    }
+
+    // chọn bộ tham số theo độ khó của từng đề rồi giao cho bộ giải tương ứng
+    private final class Profiled implements Solver
+    {
+        private final String solver;
+        private final SplittableRandom rd;
+        private SolverListener listener = SolverListener.NONE;
+
+        Profiled(String solver, long seed)
+        {
+            this.solver = solver;
+            this.rd = new SplittableRandom(seed);
+        }
+
+        @Override
+        public void setListener(SolverListener listener)
+        {
+            this.listener = listener;
+        }
+
+        @Override
+        public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+        {
+            Solver s = create(solver, Difficulty.classify(puzzle), rd.nextLong());
+            s.setListener(listener);
+            return s.solve(puzzle, cancel);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package sudoku;
+
+import java.util.*;
+
+/**
+ * Names of the available solvers and a factory for them, shared by the GUI
+ * and the command-line tools. Solver instances keep per-run state, so each
+ * concurrent solve needs its own instance.
+ */
+public final class Solvers
+{
+    public static final List<String> NAMES = List.of(
+            "Genetic", "Hill Climbing", "Simulated Annealing", "Adaptive Annealing", "Tabu Search", "Backtracking", "Portfolio", "Island Genetic");
+
+    private Solvers() { }
+
+    public static Solver create(String name)
+    {
+        return create(name, new Random().nextLong());
+    }
+
+    /**
+     * A new solver by name (case and spaces/underscores ignored).
+     * The seed is used by the stochastic solvers, Island Genetic included
+     * (each island's generator is split from it, though which migrants
+     * arrive when still depends on thread timing); Portfolio draws its own.
+     * Genetic and Simulated Annealing take their parameters from
+     * SolverProfile.shared() when it has any for them.
+     */
+    public static Solver create(String name, long seed)
+    {
+        SolverProfile profile = SolverProfile.shared();
+
+        switch (key(name))
+        {
+            case "genetic":
+                return profile.covers(SolverProfile.GENETIC)
+                        ? profile.create(SolverProfile.GENETIC, seed) : new Genetic(seed);
+            case "hillclimbing":       return new Hill_Climbing(seed);
+            case "simulatedannealing":
+                return profile.covers(SolverProfile.ANNEALING)
+                        ? profile.create(SolverProfile.ANNEALING, seed) : new Simulated_Annealing(seed);
+            case "adaptiveannealing":  return new Simulated_Annealing(seed, true);
+            case "tabusearch":         return new Tabu_Search(seed);
+            case "backtracking":       return new Backtracking();
+            case "portfolio":          return new Portfolio();
+            case "islandgenetic":      return new Island_Genetic(seed);
+            default:
+                throw new IllegalArgumentException("Unknown solver: " + name + " (expected one of " + NAMES + ")");
+        }
+    }
+
+    static String key(String name)
+    {
+        return name.toLowerCase(Locale.ROOT).replace(" ", "").replace("_", "").replace("-", "");
+    }
+}
@@ -1,45 +1,324 @@
 package sudoku;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
+/**
+ * A board of box size b: b*b rows, columns and blocks, digits 1..b*b.
+ * The classic board has b = 3; 16x16 (b = 4) and 25x25 (b = 5) work the
+ * same way, up to b = 7 so that a unit's digits fit in one long mask.
+ */
 public class Sudoku implements Cloneable
 {
+	/** Side of the classic board. */
 	public static final int SIZE = 9;
-	private int[][] grid;      // 0 means empty
-	private boolean[][] fixed; // true if original clue
 
+	private final int size;     // số chữ số mỗi đơn vị
+	private final int cells;
+	private final Geometry geo;
+
+	// chỉ số đơn vị (hàng / cột / khối) của từng ô, lấy từ Geometry
+	private final int[] rowUnit;
+	private final int[] colUnit;
+	private final int[] boxUnit;
+
+	private byte[] grid;       // ô r*size + c, 0 means empty
+	private long[] fixed;      // bit i = 1 if cell i is an original clue
+
+	// số lần xuất hiện của mỗi chữ số trong từng đơn vị: count[unit * (size + 1) + v]
+	private byte[] count;
+	// bitmask các chữ số đang có mặt trong từng đơn vị (bit v)
+	private long[] present;
+	private int conflicts;     // tổng xung đột, cập nhật mỗi lần set()
+
+	/** An empty classic 9x9 board. */
 	public Sudoku()
 	{
-		grid = new int[SIZE][SIZE];
-		fixed = new boolean[SIZE][SIZE];
+		this(3);
+	}
+
+	/**
+	 * An empty board with the given box size (3 for 9x9, 4 for 16x16, ...).
+	 */
+	public Sudoku(int box)
+	{
+		geo = Geometry.of(box);
+		size = geo.size;
+		cells = geo.cells;
+		rowUnit = geo.row;
+		colUnit = geo.colUnit;
+		boxUnit = geo.blockUnit;
+
+		grid = new byte[cells];
+		fixed = new long[(cells + 63) / 64];
+		count = new byte[3 * size * (size + 1)];
+		present = new long[3 * size];
 	}
 
+	/**
+	 * A board holding the given values (0 = empty) with every non-zero
+	 * value fixed. The side must be a square: 9, 16, 25, ...
+	 */
 	public Sudoku(int[][] start)
 	{
-		this();
+		this(boxForSize(start.length));
+
+		for (int r = 0; r < size; r++)
+		{
+			for (int c = 0; c < size; c++)
+			{
+				set(r, c, start[r][c]);
+				setFixed(r, c, start[r][c] != 0);
+			}
+		}
+	}
+
+	private static int boxForSize(int size)
+	{
+		int box = Geometry.boxForCells(size * size);
+
+		if (box < 0)
+		{
+			throw new IllegalArgumentException("Board side must be a square up to "
+					+ Geometry.MAX_BOX * Geometry.MAX_BOX + ", got " + size);
+		}
+
+		return box;
+	}
+
+	/**
+	 * Read a puzzle in the one-line format: symbols are clues ('1'-'9', then
+	 * 'A'-'Z' for 10-35 and 'a'-'n' for 36-49), '0' or '.' are empty cells.
+	 * A line of exactly 256, 625, 1296 or 2401 characters is read as a
+	 * 16x16, 25x25, 36x36 or 49x49 board; anything else as a classic board
+	 * from its first 81 characters. Symbols that are not a digit of the
+	 * board are read as empty cells.
+	 */
+	public static Sudoku parse(CharSequence line)
+	{
+		int box = Geometry.boxForCells(line.length());
+
+		if (box < 3)
+		{
+			box = 3;
+		}
+
+		int size = box * box;
+		int cells = size * size;
+
+		if (line.length() < cells)
+		{
+			throw new IllegalArgumentException("Expected " + cells + " cells, got " + line.length());
+		}
+
+		int[][] data = new int[size][size];
+
+		for (int i = 0; i < cells; i++)
+		{
+			data[i / size][i % size] = digit(line.charAt(i), size);
+		}
+
+		return new Sudoku(data);
+	}
+
+	/**
+	 * Like parse(), for input that must be checked: a line of exactly one
+	 * board (81, 256, ... symbols) made only of '.', '0' and digits of that
+	 * board. Returns null for anything else instead of reading it as blanks.
+	 */
+	public static Sudoku parseExact(CharSequence line)
+	{
+		int box = Geometry.boxForCells(line.length());
+
+		if (box < 3)
+		{
+			return null;
+		}
 
-		for (int r = 0; r < SIZE; r++)
+		for (int i = 0; i < line.length(); i++)
 		{
-			for (int c = 0; c < SIZE; c++)
+			char ch = line.charAt(i);
+
+			if (ch != '.' && ch != '0' && digit(ch, box * box) == 0)
 			{
-				grid[r][c] = start[r][c];
-				fixed[r][c] = (start[r][c] != 0);
+				return null;
 			}
 		}
+
+		return parse(line);
+	}
+
+	/**
+	 * Value of a symbol of the line format: '1'-'9', 'A'-'Z' for 10-35,
+	 * 'a'-'n' for 36-49, else 0.
+	 */
+	public static int digit(char ch)
+	{
+		if (ch >= '1' && ch <= '9') return ch - '0';
+		if (ch >= 'A' && ch <= 'Z') return ch - 'A' + 10;
+		if (ch >= 'a' && ch <= 'n') return ch - 'a' + 36;
+		return 0;
+	}
+
+	/**
+	 * Value of a symbol on a board with size digits, 0 if it is not one of
+	 * them. Boards of at most 35 digits use no lowercase symbols, so there
+	 * lowercase is read as uppercase.
+	 */
+	public static int digit(char ch, int size)
+	{
+		int v = digit(size <= 35 ? Character.toUpperCase(ch) : ch);
+		return v <= size ? v : 0;
+	}
+
+	/** Symbol of a value in the line format; '.' for 0. */
+	public static char symbol(int v)
+	{
+		return v == 0 ? '.' : v <= 9 ? (char) ('0' + v) : v <= 35 ? (char) ('A' + v - 10) : (char) ('a' + v - 36);
+	}
+
+	/** Digits per unit: 9 for the classic board. */
+	public int size() { return size; }
+
+	/** Side of a block: 3 for the classic board. */
+	public int boxSize() { return geo.box; }
+
+	public int get(int r, int c) { return grid[r * size + c]; }
+
+	public boolean isFixed(int r, int c)
+	{
+		int i = r * size + c;
+		return (fixed[i >>> 6] & (1L << i)) != 0;
+	}
+
+	public void setFixed(int r, int c, boolean f)
+	{
+		int i = r * size + c;
+
+		if (f) fixed[i >>> 6] |= 1L << i;
+		else   fixed[i >>> 6] &= ~(1L << i);
+	}
+
+	public void set(int r, int c, int v)
+	{
+		int i = r * size + c;
+		int old = grid[i];
+
+		if (old == v)
+		{
+			return;
+		}
+
+		remove(rowUnit[i], old);
+		remove(colUnit[i], old);
+		remove(boxUnit[i], old);
+
+		add(rowUnit[i], v);
+		add(colUnit[i], v);
+		add(boxUnit[i], v);
+
+		grid[i] = (byte) v;
+	}
+
+	/**
+	 * Swap two cells of the same row.
+	 */
+	public void swap(int r, int c1, int c2)
+	{
+		int temp = get(r, c1);
+
+		set(r, c1, get(r, c2));
+		set(r, c2, temp);
+	}
+
+	/**
+	 * Change in conflicts() that swap(r, c1, c2) would cause, without applying it.
+	 * A swap inside a row never changes that row, so only the two columns and
+	 * (when they differ) the two blocks are inspected.
+	 */
+	public int swapDelta(int r, int c1, int c2)
+	{
+		int i1 = r * size + c1;
+		int i2 = r * size + c2;
+		int x = grid[i1];
+		int y = grid[i2];
+
+		if (x == y)
+		{
+			return 0;
+		}
+
+		int delta = moveDelta(colUnit[i1], x, y) + moveDelta(colUnit[i2], y, x);
+
+		if (boxUnit[i1] != boxUnit[i2])
+		{
+			delta += moveDelta(boxUnit[i1], x, y) + moveDelta(boxUnit[i2], y, x);
+		}
+
+		return delta;
+	}
+
+	/**
+	 * True if the cell's digit appears more than once in its row, column or
+	 * block. Empty cells are never in conflict.
+	 */
+	public boolean inConflict(int r, int c)
+	{
+		int i = r * size + c;
+		int v = grid[i];
+
+		if (v == 0)
+		{
+			return false;
+		}
+
+		return count[rowUnit[i] * (size + 1) + v] > 1
+				|| count[colUnit[i] * (size + 1) + v] > 1
+				|| count[boxUnit[i] * (size + 1) + v] > 1;
+	}
+
+	// thay "out" bằng "in" trong một đơn vị (out != in)
+	private int moveDelta(int unit, int out, int in)
+	{
+		int base = unit * (size + 1);
+		int delta = 0;
+
+		if (out != 0 && count[base + out] > 1) delta--;
+		if (in != 0 && count[base + in] > 0) delta++;
+
+		return delta;
 	}
 
-	public int get(int r, int c) { return grid[r][c]; }
-	public void set(int r, int c, int v) { grid[r][c] = v; }
-	public boolean isFixed(int r, int c) { return fixed[r][c]; }
-	public void setFixed(int r, int c, boolean f) {	fixed[r][c] = f; }
+	private void remove(int unit, int v)
+	{
+		if (v < 1 || v > size) return;
+
+		int k = unit * (size + 1) + v;
+
+		if (count[k] > 1) conflicts--;
+		if (--count[k] == 0) present[unit] &= ~(1L << v);
+	}
+
+	private void add(int unit, int v)
+	{
+		if (v < 1 || v > size) return;
+
+		int k = unit * (size + 1) + v;
+
+		if (count[k] > 0) conflicts++;
+		if (count[k]++ == 0) present[unit] |= 1L << v;
+	}
 
 	public int[][] getGridCopy()
 	{
-		int[][] copy = new int[SIZE][SIZE];
+		int[][] copy = new int[size][size];
 
-		for (int r = 0; r < SIZE; r++)
+		for (int r = 0; r < size; r++)
 		{
-			System.arraycopy(grid[r], 0, copy[r], 0, SIZE);
+			for (int c = 0; c < size; c++)
+			{
+				copy[r][c] = grid[r * size + c];
+			}
 		}
 
 		return copy;
@@ -49,145 +328,214 @@ public class Sudoku implements Cloneable
 	@Override
 	public Sudoku clone()
 	{
-		Sudoku s = new Sudoku();
+		return new Sudoku(this);
+	}
+
+	// sao chép nguyên mảng, không khởi tạo lại từng ô
+	private Sudoku(Sudoku other)
+	{
+		size = other.size;
+		cells = other.cells;
+		geo = other.geo;
+		rowUnit = other.rowUnit;
+		colUnit = other.colUnit;
+		boxUnit = other.boxUnit;
+
+		grid = other.grid.clone();
+		fixed = other.fixed.clone();
+		count = other.count.clone();
+		present = other.present.clone();
+		conflicts = other.conflicts;
+	}
+
+	/**
+	 * Make this board an exact copy of another board of the same size,
+	 * reusing this board's arrays: clone() without the allocation.
+	 */
+	public void copyFrom(Sudoku other)
+	{
+		if (other.size != size)
+		{
+			throw new IllegalArgumentException("Board sizes differ: " + other.size + " vs " + size);
+		}
+
+		System.arraycopy(other.grid, 0, grid, 0, grid.length);
+		System.arraycopy(other.fixed, 0, fixed, 0, fixed.length);
+		System.arraycopy(other.count, 0, count, 0, count.length);
+		System.arraycopy(other.present, 0, present, 0, present.length);
+		conflicts = other.conflicts;
+	}
+
+	// số ô khác nhau giữa hai bảng cùng cỡ
+	int distance(Sudoku other)
+	{
+		int n = 0;
 
-		for (int r = 0; r < SIZE; r++)
+		for (int i = 0; i < cells; i++)
 		{
-			for (int c = 0; c < SIZE; c++)
+			if (grid[i] != other.grid[i])
 			{
-				s.grid[r][c] = this.grid[r][c];
-				s.fixed[r][c] = this.fixed[r][c];
+				n++;
 			}
 		}
-		return s;
+
+		return n;
 	}
 
-	// đếm số xung đột
+	// đếm số xung đột (giữ sẵn trong bộ đếm, không cần quét lại bảng)
 	public int conflicts()
 	{
-		int conflicts = 0;
+		return conflicts;
+	}
+
+	// điền số ngẫu nhiên vào các hàng
+	public void fillRandomRows(RandomGenerator rnd)
+	{
+		int[] missing = new int[size];
 
-		// rows
-		for (int r = 0; r < SIZE; r++)
+		for (int r = 0; r < size; r++)
 		{
-			int[] cnt = new int[SIZE + 1];
+			// gom các số còn thiếu (bit chưa bật trong mặt nạ của hàng)
+			int n = 0;
+			long free = ~present[r];
 
-			for (int c = 0; c < SIZE; c++)
+			for (int v = 1; v <= size; v++)
 			{
-				int v = grid[r][c];
+				if ((free & (1L << v)) != 0)
+				{
+					missing[n++] = v;
+				}
+			}
 
-				if (v >= 1 && v <= 9)  cnt[v]++;
+			// trộn ngẫu nhiên
+			for (int i = n - 1; i > 0; i--)
+			{
+				int j = rnd.nextInt(i + 1);
+
+				int temp = missing[i];
+				missing[i] = missing[j];
+				missing[j] = temp;
 			}
 
-			for (int v = 1; v <= 9; v++)
+			// điền vào ô trống
+			int idx = 0;
+
+			for (int c = 0; c < size && idx < n; c++)
 			{
-				if (cnt[v] > 1)
+				if (grid[r * size + c] == 0)
 				{
-					conflicts += cnt[v] - 1;
+					set(r, c, missing[idx++]);
 				}
 			}
 		}
+	}
 
-		// columns
-		for (int c = 0; c < SIZE; c++)
-		{
-			int[] cnt = new int[SIZE + 1];
-
-			for (int r = 0; r < SIZE; r++)
-			{
-				int v = grid[r][c];
+	/**
+	 * Like fillRandomRows(rnd), but each empty cell takes one of its
+	 * candidate digits (bit v of candidates[r * size + c]) when the row's
+	 * missing digits allow it. Cells are filled most constrained first; a
+	 * cell whose candidates are all taken gets any missing digit, so every
+	 * row still ends up a permutation.
+	 */
+	public void fillRandomRows(RandomGenerator rnd, long[] candidates)
+	{
+		int[] empty = new int[size];
 
-				if (v >= 1 && v <= 9) cnt[v]++;
-			}
+		for (int r = 0; r < size; r++)
+		{
+			long missing = ~present[r] & (((1L << size) - 1) << 1);
+			int m = 0;
 
-			for (int v = 1; v <= 9; v++)
+			for (int c = 0; c < size; c++)
 			{
-				if (cnt[v] > 1)
+				if (grid[r * size + c] == 0)
 				{
-					conflicts += cnt[v] - 1;
+					empty[m++] = c;
 				}
 			}
-		}
 
-		// 3x3 blocks
-		for (int br = 0; br < 3; br++)
-		{
-			for (int bc = 0; bc < 3; bc++)
+			while (m > 0 && missing != 0)
 			{
-				int[] cnt = new int[SIZE + 1];
+				// ô ít lựa chọn nhất, hòa thì chọn ngẫu nhiên đều
+				int pick = -1;
+				int fewest = Integer.MAX_VALUE;
+				int ties = 0;
 
-				for (int r = br * 3; r < br * 3 + 3; r++)
+				for (int k = 0; k < m; k++)
 				{
-					for (int c = bc * 3; c < bc * 3 + 3; c++)
-					{
-						int v = grid[r][c];
+					int choices = Long.bitCount(candidates[r * size + empty[k]] & missing);
 
-						if (v >= 1 && v <= 9) cnt[v]++;
+					if (choices < fewest)
+					{
+						fewest = choices;
+						ties = 0;
 					}
-				}
 
-				for (int v = 1; v <= 9; v++)
-				{
-					if (cnt[v] > 1)
+					if (choices == fewest && rnd.nextInt(++ties) == 0)
 					{
-						conflicts += cnt[v] - 1;
+						pick = k;
 					}
 				}
-			}
-		}
-		return conflicts;
-	}
 
-	// điền số ngẫu nhiên vào các hàng
-	public void fillRandomRows(Random rnd)
-	{
-		for (int r = 0; r < SIZE; r++)
-		{
-			boolean[] present = new boolean[SIZE + 1];
-
-			// đánh dấu số đã có
-			for (int c = 0; c < SIZE; c++)
-			{
-				int v = grid[r][c];
+				int c = empty[pick];
+				long choices = candidates[r * size + c] & missing;
 
-				if (v >= 1 && v <= 9)
+				if (choices == 0)
 				{
-					present[v] = true;
+					choices = missing;
 				}
-			}
-
-			// gom các số còn thiếu
-			List<Integer> missing = new ArrayList<>();
 
-			for (int v = 1; v <= 9; v++)
-			{
-				if (!present[v])
+				// bit thứ j (ngẫu nhiên) trong các lựa chọn
+				for (int j = rnd.nextInt(Long.bitCount(choices)); j > 0; j--)
 				{
-					missing.add(v);
+					choices &= choices - 1;
 				}
-			}
 
-			// trộn ngẫu nhiên
-			for (int i = missing.size() - 1; i > 0; i--)
-			{
-				int j = rnd.nextInt(i + 1);
+				int v = Long.numberOfTrailingZeros(choices);
 
-				int temp = missing.get(i);
-				missing.set(i, missing.get(j));
-				missing.set(j, temp);
+				set(r, c, v);
+				missing &= ~(1L << v);
+				empty[pick] = empty[--m];
 			}
+		}
+	}
 
-			// điền vào ô trống
-			int idx = 0;
+	/**
+	 * True if this board is complete, has no conflicts and keeps every
+	 * fixed cell of the given puzzle.
+	 */
+	public boolean solves(Sudoku puzzle)
+	{
+		if (conflicts != 0 || puzzle.size != size)
+		{
+			return false;
+		}
 
-			for (int c = 0; c < SIZE; c++)
+		for (int r = 0; r < size; r++)
+		{
+			for (int c = 0; c < size; c++)
 			{
-				if (grid[r][c] == 0)
+				if (get(r, c) == 0 || (puzzle.isFixed(r, c) && puzzle.get(r, c) != get(r, c)))
 				{
-					grid[r][c] = missing.get(idx++);
+					return false;
 				}
 			}
 		}
+
+		return true;
+	}
+
+	// dạng một dòng (81 ký tự với bảng 9x9), ô trống là '.'
+	public String toLine()
+	{
+		StringBuilder sb = new StringBuilder(cells);
+
+		for (int i = 0; i < cells; i++)
+		{
+			sb.append(symbol(grid[i]));
+		}
+
+		return sb.toString();
 	}
 
 	@Override
@@ -195,13 +543,13 @@ public class Sudoku implements Cloneable
 	{
 		StringBuilder sb = new StringBuilder();
 
-		for (int r = 0; r < SIZE; r++)
+		for (int r = 0; r < size; r++)
 		{
-			for (int c = 0; c < SIZE; c++)
+			for (int c = 0; c < size; c++)
 			{
-				sb.append(grid[r][c]);
+				sb.append(grid[r * size + c]);
 
-				if (c < 8)
+				if (c < size - 1)
 				{
 					sb.append(' ');
 				}
@@ -212,4 +560,4 @@ public class Sudoku implements Cloneable
 
 		return sb.toString();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,204 @@
+package sudoku;
+
+import java.util.*;
+
+/**
+ * Tabu Search for Sudoku.
+ * Start with random fill per row after Propagation (as Hill_Climbing), then
+ * at every step take the best swap of the neighbourhood, even if it makes
+ * things worse. Only swaps inside a row that move at least one cell
+ * currently in conflict are considered, each scored with swapDelta without
+ * being applied.
+ * After a swap, putting either cell's old digit back into it is tabu for a
+ * few steps, which keeps the search from undoing its own moves; a tabu swap
+ * is still taken if it reaches fewer conflicts than the best seen so far
+ * (aspiration). When the best has not improved for a while, a few random
+ * swaps shake the board loose.
+ * Not thread-safe: use one instance per concurrent solve.
+ */
+public class Tabu_Search implements Solver
+{
+    private SplittableRandom rd = new SplittableRandom();
+    private int maxIterations = 200000;
+    private int tenure = 10;         // số bước tối thiểu một giá trị cũ bị cấm quay lại ô
+    private int maxStall = 400;      // số bước không cải thiện trước khi xáo trộn
+    private SolverListener listener = SolverListener.NONE;
+
+    public Tabu_Search() { }
+
+    public Tabu_Search(long seed)
+    {
+        this.rd = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void setListener(SolverListener listener)
+    {
+        this.listener = listener;
+    }
+
+    @Override
+    public Sudoku solve(Sudoku puzzle, Cancellation cancel)
+    {
+        // điền trước các ô suy ra được; chỉ tìm kiếm trên các ô còn lại
+        Propagation prep = new Propagation(puzzle);
+        Sudoku current = prep.board().clone();
+        current.fillRandomRows(rd, prep.candidates());
+
+        MoveTable moves = new MoveTable(prep.board());
+
+        int n = current.size();
+        int[] tabu = new int[n * n * (n + 1)];  // tabu[ô * (n + 1) + v]: bước đến khi ô được nhận lại v
+        boolean[] hot = new boolean[n];         // ô của hàng đang xét có xung đột không
+
+        int currConf = current.conflicts();
+        int bestConf = currConf;
+
+        listener.improved(currConf, 0);
+
+        long start = System.nanoTime();
+        int taken = 0;      // số bước đã đi / không làm tệ hơn, từ lần báo cáo trước
+        int downhill = 0;
+        int stall = 0;
+        int it = 0;
+
+        for (; it < maxIterations && currConf > 0 && moves.hasMoves(); it++)
+        {
+            // mỗi bước duyệt cả lân cận, nên kiểm tra hủy thường hơn Hill_Climbing
+            if ((it & 63) == 0 && cancel.isCancelled())
+            {
+                break;
+            }
+
+            // báo cáo định kỳ, chỉ khi có người nghe
+            if ((it & 255) == 0 && it > 0 && listener != SolverListener.NONE)
+            {
+                listener.checkpoint(new Checkpoint("Tabu_Search", it, System.nanoTime() - start, currConf, bestConf,
+                        taken == 0 ? 0 : (double) downhill / taken, Double.NaN, Double.NaN));
+                taken = 0;
+                downhill = 0;
+            }
+
+            if (stall >= maxStall)
+            {
+                currConf = perturb(current, moves, currConf);
+                stall = 0;
+                continue;
+            }
+
+            // bước tốt nhất trong lân cận; hòa thì chọn ngẫu nhiên đều
+            int bestDelta = Integer.MAX_VALUE;
+            int ties = 0;
+            int mr = -1, ma = -1, mb = -1;
+
+            for (int r = 0; r < n; r++)
+            {
+                int[] free = moves.free(r);
+
+                for (int k = 0; k < free.length; k++)
+                {
+                    hot[k] = current.inConflict(r, free[k]);
+                }
+
+                for (int i = 0; i < free.length; i++)
+                {
+                    for (int j = i + 1; j < free.length; j++)
+                    {
+                        if (!hot[i] && !hot[j])
+                        {
+                            continue;
+                        }
+
+                        int a = free[i];
+                        int b = free[j];
+                        int delta = current.swapDelta(r, a, b);
+
+                        if (delta > bestDelta)
+                        {
+                            continue;
+                        }
+
+                        int x = current.get(r, a);
+                        int y = current.get(r, b);
+                        boolean forbidden = tabu[(r * n + a) * (n + 1) + y] > it
+                                || tabu[(r * n + b) * (n + 1) + x] > it;
+
+                        if (forbidden && currConf + delta >= bestConf)
+                        {
+                            continue;
+                        }
+
+                        if (delta < bestDelta)
+                        {
+                            bestDelta = delta;
+                            ties = 0;
+                        }
+
+                        if (rd.nextInt(++ties) == 0)
+                        {
+                            mr = r;
+                            ma = a;
+                            mb = b;
+                        }
+                    }
+                }
+            }
+
+            if (mr < 0)
+            {
+                // mọi bước đều bị cấm: đứng yên một nhịp cho danh sách cấm hết hạn
+                stall++;
+                continue;
+            }
+
+            int x = current.get(mr, ma);
+            int y = current.get(mr, mb);
+
+            current.swap(mr, ma, mb);
+            currConf += bestDelta;
+
+            tabu[(mr * n + ma) * (n + 1) + x] = it + tenure + rd.nextInt(tenure);
+            tabu[(mr * n + mb) * (n + 1) + y] = it + tenure + rd.nextInt(tenure);
+
+            taken++;
+
+            if (bestDelta <= 0)
+            {
+                downhill++;
+            }
+
+            if (currConf < bestConf)
+            {
+                bestConf = currConf;
+                stall = 0;
+                listener.improved(currConf, it);
+            }
+            else
+            {
+                stall++;
+            }
+        }
+
+        listener.finished(it);
+        return (currConf == 0) ? current : null;
+    }
+
+    // vài phép đổi ngẫu nhiên để thoát vùng trũng; trả về số xung đột mới
+    private int perturb(Sudoku current, MoveTable moves, int currConf)
+    {
+        int swaps = 2 + rd.nextInt(current.size());
+
+        for (int s = 0; s < swaps; s++)
+        {
+            int r = moves.randomRow(rd);
+            int pair = moves.pair(r, rd);
+            int a = MoveTable.first(pair);
+            int b = MoveTable.second(pair);
+
+            currConf += current.swapDelta(r, a, b);
+            current.swap(r, a, b);
+        }
+
+        return currConf;
+    }
+}
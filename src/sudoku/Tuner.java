@@ -0,0 +1,344 @@
+package sudoku;
+
+import java.io.*;
+import java.math.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Offline parameter tuning for Genetic and Simulated_Annealing by successive
+ * halving. For every solver and Difficulty, a set of candidates (the
+ * built-in defaults plus random ones, drawn log-uniformly from each
+ * parameter's range) is run on that tier's puzzles of a locally generated
+ * corpus (as SolverBenchmark's); after each round the better half goes on
+ * to the next round with a new seed per puzzle, until one candidate is left.
+ * Candidates are ranked by success rate, then by mean time with failures
+ * counted as the full timeout. All candidates of a round see the same
+ * puzzles and seeds, and their runs go to a thread pool together, except
+ * Genetic's: it already breeds in parallel, so its runs go one at a time
+ * and are timed with the whole machine, as outside of tuning.
+ *
+ * The winners are written as a SolverProfile. One line per finalist and
+ * for the defaults, with the rounds each survived, goes to standard output
+ * as CSV so that the gain over the defaults can be checked.
+ *
+ * The output file is required: a profile named solver-profile.properties
+ * in the working directory is picked up by every later run started there.
+ *
+ * Usage: java sudoku.Tuner --out file [--solvers genetic,annealing] [--puzzles N]
+ *                          [--candidates N] [--timeout ms] [--threads N] [--seed N]
+ */
+public class Tuner
+{
+    private List<String> solvers = List.of(SolverProfile.GENETIC, SolverProfile.ANNEALING);
+    private int puzzlesPerTier = 6;
+    private int candidates = 16;
+    private Duration timeout = Duration.ofSeconds(2);
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+    private Path out;
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException
+    {
+        Tuner tuner = new Tuner();
+
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--solvers":    tuner.solvers = Arrays.asList(args[i + 1].split(",")); break;
+                case "--puzzles":    tuner.puzzlesPerTier = Integer.parseInt(args[i + 1]); break;
+                case "--candidates": tuner.candidates = Integer.parseInt(args[i + 1]); break;
+                case "--timeout":    tuner.timeout = Duration.ofMillis(Long.parseLong(args[i + 1])); break;
+                case "--threads":    tuner.threads = Integer.parseInt(args[i + 1]); break;
+                case "--seed":       tuner.seed = Long.parseLong(args[i + 1]); break;
+                case "--out":        tuner.out = Paths.get(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if (tuner.out == null)
+        {
+            throw new IllegalArgumentException("Missing option: --out file (the profile to write)");
+        }
+
+        tuner.run(new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true));
+    }
+
+    /** One tunable parameter and its search range. */
+    private static final class Param
+    {
+        final String name;
+        final double lo;
+        final double hi;
+        final double fallback;     // giá trị mặc định của bộ giải
+        final boolean integer;
+
+        Param(String name, double lo, double hi, double fallback, boolean integer)
+        {
+            this.name = name;
+            this.lo = lo;
+            this.hi = hi;
+            this.fallback = fallback;
+            this.integer = integer;
+        }
+
+        // phân bố đều theo thang log
+        double sample(SplittableRandom rnd)
+        {
+            double v = lo * Math.pow(hi / lo, rnd.nextDouble());
+            return integer ? Math.round(v) : v;
+        }
+
+        String format(double v)
+        {
+            return integer ? Long.toString(Math.round(v))
+                    : new BigDecimal(v).round(new MathContext(4)).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private static Param[] space(String solver)
+    {
+        switch (solver)
+        {
+            case SolverProfile.GENETIC:
+                return new Param[] {
+                    new Param("populationSize", 50, 1000, Genetic.POPULATION_SIZE, true),
+                    new Param("maxGenerations", 500, 5000, Genetic.MAX_GENERATIONS, true),
+                    new Param("mutationRate", 0.005, 0.3, Genetic.MUTATION_RATE, false),
+                };
+            case SolverProfile.ANNEALING:
+                return new Param[] {
+                    new Param("maxIterations", 50_000, 2_000_000, Simulated_Annealing.MAX_ITERATIONS, true),
+                    new Param("startTemp", 0.2, 20, Simulated_Annealing.START_TEMP, false),
+                    new Param("endTemp", 0.0005, 0.1, Simulated_Annealing.END_TEMP, false),
+                };
+            default:
+                throw new IllegalArgumentException("Cannot tune solver: " + solver
+                        + " (expected " + SolverProfile.GENETIC + " or " + SolverProfile.ANNEALING + ")");
+        }
+    }
+
+    /** A parameter set and its results so far. */
+    private static final class Candidate
+    {
+        final String label;
+        final double[] values;
+        int rounds;
+        int runs;
+        int solved;
+        double cost;        // tổng thời gian (ms), lần thất bại tính bằng cả thời hạn
+
+        Candidate(String label, double[] values)
+        {
+            this.label = label;
+            this.values = values;
+        }
+
+        double successRate()
+        {
+            return runs == 0 ? 0 : (double) solved / runs;
+        }
+
+        double meanCost()
+        {
+            return runs == 0 ? Double.MAX_VALUE : cost / runs;
+        }
+    }
+
+    private static final Comparator<Candidate> BETTER_FIRST = Comparator
+            .comparingDouble(Candidate::successRate).reversed()
+            .thenComparingDouble(Candidate::meanCost);
+
+    void run(PrintWriter summary) throws IOException, InterruptedException, ExecutionException
+    {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<SolverBenchmark.Entry> corpus = SolverBenchmark.corpus(rnd.split(), puzzlesPerTier);
+        ExecutorService parallel = Executors.newFixedThreadPool(threads);
+        ExecutorService serial = Executors.newSingleThreadExecutor();   // cho Genetic, vốn đã lai song song
+        Properties profile = new Properties();
+
+        summary.println("solver,tier,candidate,rounds,runs,success_rate,mean_ms,parameters");
+
+        try
+        {
+            for (String solver : solvers)
+            {
+                Param[] space = space(solver);
+                ExecutorService pool = solver.equals(SolverProfile.GENETIC) ? serial : parallel;
+
+                for (Difficulty tier : Difficulty.values())
+                {
+                    List<SolverBenchmark.Entry> puzzles = new ArrayList<>();
+
+                    for (SolverBenchmark.Entry e : corpus)
+                    {
+                        if (e.tier == tier)
+                        {
+                            puzzles.add(e);
+                        }
+                    }
+
+                    List<Candidate> field = new ArrayList<>();
+                    double[] defaults = new double[space.length];
+
+                    for (int p = 0; p < space.length; p++)
+                    {
+                        defaults[p] = space[p].fallback;
+                    }
+
+                    field.add(new Candidate("default", defaults));
+
+                    for (int k = 1; k < candidates; k++)
+                    {
+                        double[] values = new double[space.length];
+
+                        for (int p = 0; p < space.length; p++)
+                        {
+                            values[p] = space[p].sample(rnd);
+                        }
+
+                        field.add(new Candidate("c" + k, values));
+                    }
+
+                    Candidate baseline = field.get(0);
+                    Candidate winner = halve(pool, solver, tier, space, field, puzzles, summary);
+
+                    if (baseline != winner)
+                    {
+                        report(summary, solver, tier, space, baseline);
+                    }
+
+                    for (int p = 0; p < space.length; p++)
+                    {
+                        profile.setProperty(SolverProfile.key(solver, tier, space[p].name),
+                                space[p].format(winner.values[p]));
+                    }
+                }
+            }
+        }
+        finally
+        {
+            parallel.shutdownNow();
+            serial.shutdownNow();
+        }
+
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8)))
+        {
+            w.println("# Solver parameters per difficulty, written by sudoku.Tuner");
+            w.printf(Locale.ROOT, "# %d puzzles per tier, %d candidates, %d ms per run, seed %d%n",
+                    puzzlesPerTier, candidates, timeout.toMillis(), seed);
+
+            for (String key : new TreeSet<>(profile.stringPropertyNames()))
+            {
+                w.println(key + "=" + profile.getProperty(key));
+            }
+        }
+    }
+
+    // loại dần một nửa số ứng viên sau mỗi vòng; trả về ứng viên còn lại
+    private Candidate halve(ExecutorService pool, String solver, Difficulty tier, Param[] space,
+            List<Candidate> field, List<SolverBenchmark.Entry> puzzles, PrintWriter summary)
+            throws InterruptedException, ExecutionException
+    {
+        List<Candidate> alive = new ArrayList<>(field);
+
+        for (int round = 0; alive.size() > 1; round++)
+        {
+            evaluate(pool, solver, tier, space, alive, puzzles, round);
+            alive.sort(BETTER_FIRST);
+
+            // hai ứng viên cuối cùng đều được báo cáo
+            if (alive.size() == 2)
+            {
+                report(summary, solver, tier, space, alive.get(1));
+            }
+
+            alive = new ArrayList<>(alive.subList(0, (alive.size() + 1) / 2));
+        }
+
+        report(summary, solver, tier, space, alive.get(0));
+        return alive.get(0);
+    }
+
+    // mỗi ứng viên giải mỗi đề một lần với cùng hạt giống của vòng này
+    private void evaluate(ExecutorService pool, String solver, Difficulty tier, Param[] space,
+            List<Candidate> alive, List<SolverBenchmark.Entry> puzzles, int round)
+            throws InterruptedException, ExecutionException
+    {
+        List<Future<Double>> runs = new ArrayList<>();
+
+        for (Candidate c : alive)
+        {
+            SolverProfile profile = new SolverProfile(properties(solver, tier, space, c));
+
+            for (int i = 0; i < puzzles.size(); i++)
+            {
+                Sudoku puzzle = puzzles.get(i).puzzle;
+                long runSeed = 1000L * round + i + 17;
+
+                runs.add(pool.submit(() -> {
+                    Solver s = profile.create(solver, tier, runSeed);
+                    long start = System.nanoTime();
+                    Sudoku result = s.solve(puzzle.clone(), timeout);
+                    double millis = (System.nanoTime() - start) / 1e6;
+
+                    // NaN = thất bại
+                    return result != null && result.solves(puzzle) ? millis : Double.NaN;
+                }));
+            }
+        }
+
+        int k = 0;
+
+        for (Candidate c : alive)
+        {
+            for (int i = 0; i < puzzles.size(); i++)
+            {
+                double millis = runs.get(k++).get();
+
+                c.runs++;
+
+                if (Double.isNaN(millis))
+                {
+                    c.cost += timeout.toMillis();
+                }
+                else
+                {
+                    c.solved++;
+                    c.cost += millis;
+                }
+            }
+
+            c.rounds = round + 1;
+        }
+    }
+
+    private static Properties properties(String solver, Difficulty tier, Param[] space, Candidate c)
+    {
+        Properties p = new Properties();
+
+        for (int i = 0; i < space.length; i++)
+        {
+            p.setProperty(SolverProfile.key(solver, tier, space[i].name), space[i].format(c.values[i]));
+        }
+
+        return p;
+    }
+
+    private static void report(PrintWriter summary, String solver, Difficulty tier, Param[] space, Candidate c)
+    {
+        StringBuilder params = new StringBuilder();
+
+        for (int i = 0; i < space.length; i++)
+        {
+            params.append(i == 0 ? "" : " ").append(space[i].name).append('=').append(space[i].format(c.values[i]));
+        }
+
+        summary.printf(Locale.ROOT, "%s,%s,%s,%d,%d,%.3f,%.1f,%s%n", solver, tier, c.label, c.rounds, c.runs,
+                c.successRate(), c.meanCost(), params);
+    }
+}
@@ -0,0 +1,18 @@
+package sudoku;
+
+import java.util.concurrent.*;
+
+/**
+ * Daemon threads shared by the solvers that run several searches at once.
+ * Idle threads are reclaimed, so solver instances are cheap to create.
+ */
+final class Workers
+{
+    static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "solver-worker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Workers() { }
+}